@@ -18,4 +18,24 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# Glide finds the annotation-processor generated module by reflection, and parses image
+# headers through enums it looks up by name; keep both so R8 full mode doesn't strip them
+-keep public class * implements com.bumptech.glide.module.GlideModule
+-keep class * extends com.bumptech.glide.module.AppGlideModule {
+    <init>(...);
+}
+-keep class com.bumptech.glide.GeneratedAppGlideModuleImpl {
+    <init>(...);
+}
+-keep public enum com.bumptech.glide.load.ImageHeaderParser$** {
+    **[] $VALUES;
+    public *;
+}
+-keep class com.bumptech.glide.load.data.ParcelFileDescriptorRewinder$InternalRewinder {
+    *** rewind();
+}
+
+# Keep line numbers so crash reports from the shrunk release build stay readable
+-keepattributes SourceFile,LineNumberTable
@@ -0,0 +1,62 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares closing the database after every product write (the old DBHelper behaviour)
+ * against keeping one connection open for the life of the process.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConnectionLifecycleBenchmark {
+
+    private static final String TEST_DB = "ConnectionLifecycleBenchmark.db";
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private DBHelper dbHelper;
+    private int counter = 0;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        dbHelper.openDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void insertReopeningConnectionEachWrite() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.insertProduct("Reopen " + counter++, 1, 1000, null, null);
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void insertOnPersistentConnection() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.insertProduct("Persistent " + counter++, 1, 1000, null, null);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hot DBHelper paths at 1k, 10k and 100k rows, so growth in the catalog or user table shows
+ * up as a change in the numbers rather than as a complaint from the field.
+ * Results are written as JSON; see the app build file for where they land.
+ */
+@RunWith(Parameterized.class)
+public class DBHelperBenchmark {
+
+    private static final String TEST_DB = "DBHelperBenchmark.db";
+    // More distinct names than ProductCache remembers lookups for, so cycling through them
+    // always reaches SQLite
+    private static final int UNCACHED_NAME_SPREAD = 1000;
+    // Login latency is dominated by PBKDF2 by design; a single iteration isolates the lookup
+    private static final int BENCHMARK_HASH_ITERATIONS = 1;
+    // Products are spread evenly over this many categories, so one category is 5% of the catalog
+    private static final int CATEGORIES = 20;
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static List<Integer> rowCounts() {
+        return Arrays.asList(1_000, 10_000, 100_000);
+    }
+
+    @Parameterized.Parameter
+    public int rows;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private DBHelper dbHelper;
+    private int counter = 0;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        dbHelper.setPasswordHasher(new PasswordHasher(BENCHMARK_HASH_ITERATIONS));
+
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(false);
+        boolean successful = false;
+        try {
+            for (int i = 0; i < rows; i++) {
+                writer.add(productName(i), i % 200, (i % 5000) * 100L, null, "Category " + (i % CATEGORIES),
+                        barcode(i));
+            }
+            successful = true;
+        } finally {
+            writer.finish(successful);
+        }
+        assertEquals(rows, writer.getInserted());
+        dbHelper.getProductCache().clear();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void insertProduct() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.insertProduct("Inserted " + counter++, 1, 1000, null, null);
+        }
+    }
+
+    @Test
+    public void checkIfProductExistsUncached() {
+        BenchmarkState state = benchmarkRule.getState();
+        int stride = Math.max(1, rows / UNCACHED_NAME_SPREAD);
+        while (state.keepRunning()) {
+            int index = (counter++ % UNCACHED_NAME_SPREAD) * stride;
+            dbHelper.checkIfProductExists(productName(index));
+        }
+    }
+
+    @Test
+    public void checkIfProductExistsCached() {
+        String name = productName(rows / 2);
+        assertTrue(dbHelper.checkIfProductExists(name));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.checkIfProductExists(name);
+        }
+    }
+
+    // Full table read plus building a ProductModel per row, the way the grid used to load
+    @Test
+    public void getAllProductsMaterialized() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            int count = 0;
+            try (Cursor cursor = dbHelper.getAllProducts()) {
+                // No cache, so every row is materialized as a new model
+                ProductRowMapper mapper = new ProductRowMapper(cursor, null);
+                while (cursor.moveToNext()) {
+                    mapper.map(cursor);
+                    count++;
+                }
+            }
+            if (count < rows) {
+                throw new AssertionError("Read " + count + " of " + rows + " products");
+            }
+        }
+    }
+
+    // The home grid's combined filter (category + price range + in stock); one page of it
+    // has to come back within a frame, 16 ms, at 100k products
+    @Test
+    public void getFilteredProductPage() {
+        long categoryId = dbHelper.getCatalogFacets(0).categories.get(0).id;
+        ProductFilter filter = ProductFilter.NONE.withCategory(categoryId)
+                .withPriceRange(100_00, 4_000_00).withInStockOnly(true);
+        assertFalse(dbHelper.getFilteredProductPage(filter, 0, true, ProductPager.PAGE_SIZE).isEmpty());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.getFilteredProductPage(filter, 0, true, ProductPager.PAGE_SIZE);
+        }
+    }
+
+    // The filter bar's counts, read from the trigger-maintained facet rows
+    @Test
+    public void getCatalogFacets() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.getCatalogFacets(12);
+        }
+    }
+
+    // A scan at the counter: index probe on the barcode, then the product row. Codes are cycled
+    // so the product cache can't answer every lookup after the first
+    @Test
+    public void getProductByBarcode() {
+        int stride = Math.max(1, rows / UNCACHED_NAME_SPREAD);
+        assertEquals(productName(rows / 2), dbHelper.getProductByBarcode(barcode(rows / 2)).getName());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.getProductByBarcode(barcode((counter++ % UNCACHED_NAME_SPREAD) * stride));
+        }
+    }
+
+    // Scan-to-cart end to end, without the UI: lookup plus the cart write transaction
+    @Test
+    public void addToCartByBarcode() {
+        String barcode = barcode(rows / 2);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.addToCartByBarcode(barcode);
+        }
+    }
+
+    @Test
+    public void checkUser() {
+        seedUsers();
+        String email = userEmail(rows / 2);
+        assertTrue(dbHelper.checkUser(email, "password"));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            dbHelper.checkUser(email, "password");
+        }
+    }
+
+    // Written directly rather than through insertUser(), which toasts on every call. All users
+    // share one salt and hash; only the lookup by email is being measured.
+    private void seedUsers() {
+        PasswordHasher hasher = new PasswordHasher(BENCHMARK_HASH_ITERATIONS);
+        byte[] salt = hasher.newSalt();
+        byte[] hash = hasher.hash("password", salt);
+
+        SQLiteDatabase db = dbHelper.openDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO users"
+                + " (username, email, password, salt, passwordHash, iterations) VALUES (?, ?, '', ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                insert.bindString(1, "User " + i);
+                insert.bindString(2, userEmail(i));
+                insert.bindBlob(3, salt);
+                insert.bindBlob(4, hash);
+                insert.bindLong(5, BENCHMARK_HASH_ITERATIONS);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private static String productName(int index) {
+        return "Benchmark product " + index;
+    }
+
+    // EAN-13 shaped: 13 digits, unique per product
+    private static String barcode(int index) {
+        return String.valueOf(4_000_000_000_000L + index);
+    }
+
+    private static String userEmail(int index) {
+        return "user" + index + "@easyshop.test";
+    }
+}
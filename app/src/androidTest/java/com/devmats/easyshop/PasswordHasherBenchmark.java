@@ -0,0 +1,47 @@
+package com.devmats.easyshop;
+
+import android.util.Log;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Cost of one password hash on the device, at DEFAULT_ITERATIONS and at the count
+ * calibrateIterations() picks for a 100 ms login. Compare the two before changing
+ * DEFAULT_ITERATIONS; the calibrated count is written to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PasswordHasherBenchmark {
+
+    private static final String TAG = "PasswordHasherBenchmark";
+    private static final long TARGET_MILLIS = 100;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void hashAtDefaultIterations() {
+        measureHash(new PasswordHasher());
+    }
+
+    @Test
+    public void hashAtCalibratedIterations() {
+        int iterations = PasswordHasher.calibrateIterations(TARGET_MILLIS);
+        Log.i(TAG, "Calibrated " + iterations + " iterations for " + TARGET_MILLIS + " ms (default "
+                + PasswordHasher.DEFAULT_ITERATIONS + ")");
+        measureHash(new PasswordHasher(iterations));
+    }
+
+    private void measureHash(PasswordHasher hasher) {
+        byte[] salt = hasher.newSalt();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            hasher.hash("benchmark", salt);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * Cost of the home grid's view work: inflating a tile, binding one, and scrolling a
+ * laid-out grid. Products are built in memory so the numbers exclude the database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProductAdapterBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+    private static final int GRID_COLUMNS = 3;
+    private static final int SCREEN_WIDTH_PX = 1080;
+    private static final int SCREEN_HEIGHT_PX = 1920;
+    private static final int SCROLL_STEP_PX = 120;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private ProductAdapter adapter;
+
+    @Before
+    public void setUp() {
+        context = new ContextThemeWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                R.style.Theme_EasyShop);
+        ProductRepository repository = ProductRepository.getInstance(context);
+        adapter = new ProductAdapter(context, new ProductPager(repository), repository);
+
+        ArrayList<ProductModel> products = new ArrayList<>(PRODUCTS);
+        for (int i = 1; i <= PRODUCTS; i++) {
+            products.add(new ProductModel(i, "Benchmark product " + i, i % 200, (i % 5000) * 100L, null, null));
+        }
+        // The first list is applied synchronously, no diff needed
+        adapter.submitList(products);
+    }
+
+    @Test
+    @UiThreadTest
+    public void createViewHolder() {
+        FrameLayout parent = new FrameLayout(context);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            adapter.onCreateViewHolder(parent, 0);
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void bindViewHolder() {
+        ProductAdapter.ProductViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+        int position = 0;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            adapter.onBindViewHolder(holder, position);
+            position = (position + 1) % PRODUCTS;
+        }
+    }
+
+    // Each step scrolls part of a row, so new rows are bound and old ones recycled as in a fling
+    @Test
+    @UiThreadTest
+    public void scrollGrid() {
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new GridLayoutManager(context, GRID_COLUMNS));
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setAdapter(adapter);
+        layout(recyclerView);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            if (!recyclerView.canScrollVertically(1)) {
+                recyclerView.scrollToPosition(0);
+                layout(recyclerView);
+            }
+            recyclerView.scrollBy(0, SCROLL_STEP_PX);
+        }
+    }
+
+    private static void layout(RecyclerView recyclerView) {
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH_PX, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT_PX, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, SCREEN_WIDTH_PX, SCREEN_HEIGHT_PX);
+    }
+}
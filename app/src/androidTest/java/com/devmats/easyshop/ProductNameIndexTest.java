@@ -0,0 +1,65 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the case-insensitive product name lookup against falling back to a table scan.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProductNameIndexTest {
+
+    private static final String TEST_DB = "ProductNameIndexTest.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void nameExistsQueryUsesNocaseIndex() {
+        SQLiteDatabase db = dbHelper.openDatabase();
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + DBHelper.SQL_PRODUCT_NAME_EXISTS,
+                new String[]{"apple"})) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+
+        assertTrue(plan.toString(), plan.toString().contains("idx_product_name_nocase"));
+        assertFalse(plan.toString(), plan.toString().contains("SCAN"));
+    }
+
+    @Test
+    public void nameExistsIgnoresCase() {
+        assertTrue(dbHelper.insertProduct("Green Apple", 5, 2000, null, null));
+
+        assertTrue(dbHelper.checkIfProductExists("green apple"));
+        assertTrue(dbHelper.checkIfProductExists("GREEN APPLE"));
+        assertFalse(dbHelper.checkIfProductExists("Red Apple"));
+    }
+}
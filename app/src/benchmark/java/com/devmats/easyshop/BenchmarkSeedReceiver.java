@@ -0,0 +1,61 @@
+package com.devmats.easyshop;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+// Fills the catalog with generated products and signs the user in, so a macrobenchmark can
+// launch straight into a populated home grid. Only exists in the benchmark build types:
+//   am broadcast -a com.devmats.easyshop.SEED_PRODUCTS --ei count 10000 -p com.devmats.easyshop
+// With --es email/--es password it instead registers that user and signs out, so the next
+// launch shows the login screen (used by the baseline profile generator).
+public class BenchmarkSeedReceiver extends BroadcastReceiver {
+    private static final String TAG = "BenchmarkSeedReceiver";
+    private static final String EXTRA_COUNT = "count";
+    private static final String EXTRA_EMAIL = "email";
+    private static final String EXTRA_PASSWORD = "password";
+    private static final int DEFAULT_COUNT = 10000;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        int count = intent.getIntExtra(EXTRA_COUNT, DEFAULT_COUNT);
+        String email = intent.getStringExtra(EXTRA_EMAIL);
+        String password = intent.getStringExtra(EXTRA_PASSWORD);
+        PendingResult result = goAsync();
+        Context appContext = context.getApplicationContext();
+        AppExecutors.diskIO().execute(() -> {
+            try {
+                seed(appContext, count, email, password);
+                result.setResultCode(count);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+
+    private static void seed(Context context, int count, String email, String password) {
+        SharedPreferences prefs = context.getSharedPreferences("EasyShopPrefs", Context.MODE_PRIVATE);
+        if (email != null && password != null) {
+            // Fails harmlessly when the user is already registered
+            DBHelper.getInstance(context).insertUser("Benchmark", email, password);
+            prefs.edit().remove("lastLoginTime").commit();
+        } else {
+            prefs.edit().putLong("lastLoginTime", System.currentTimeMillis()).commit();
+        }
+
+        // Names are stable, so seeding again before each run just skips the existing rows
+        DBHelper.ProductBulkWriter writer = DBHelper.getInstance(context).openProductBulkWriter(false);
+        boolean successful = false;
+        try {
+            for (int i = 1; i <= count; i++) {
+                writer.add("Benchmark product " + i, i % 200, (i % 5000) * 100L, null);
+            }
+            successful = true;
+        } finally {
+            writer.finish(successful);
+        }
+        Log.i(TAG, "Seeded " + writer.getInserted() + " products, " + writer.getSkipped() + " already present");
+    }
+}
@@ -3,12 +3,11 @@ package com.devmats.easyshop;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.MediaStore;
+import android.text.TextUtils;
 import android.util.Log;
 import android.widget.*;
 
@@ -18,20 +17,28 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import java.io.InputStream;
+import com.bumptech.glide.Glide;
+
+import java.io.File;
+import java.util.ArrayList;
 
 public class AddProductActivity extends AppCompatActivity {
 
     private static final String TAG = "AddProductActivity";
+    // Id of the product to edit; without it the screen adds a new product
+    public static final String EXTRA_PRODUCT_ID = "productId";
     private static final int PICK_IMAGE_REQUEST = 1;
     private static final int STORAGE_PERMISSION_CODE = 102;
 
     private ImageView imgUpload;
-    private EditText edtProductName, edtUnits, edtPrice;
+    private EditText edtProductName, edtUnits, edtPrice, edtBarcode, edtCategory, edtTags;
     private Button btnAddProduct;
     private Uri imageUri = null;
+    private String thumbnailPath = null;
+    // Generated for a newly picked image but not saved yet; deleted if the screen is left
+    private String unsavedThumbnailPath = null;
     private int productId = -1;
-    private DBHelper dbHelper;
+    private ProductRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,8 +50,11 @@ public class AddProductActivity extends AppCompatActivity {
         edtProductName = findViewById(R.id.edt_product_name);
         edtUnits = findViewById(R.id.edt_units);
         edtPrice = findViewById(R.id.edt_price);
+        edtBarcode = findViewById(R.id.edt_barcode);
+        edtCategory = findViewById(R.id.edt_category);
+        edtTags = findViewById(R.id.edt_tags);
         btnAddProduct = findViewById(R.id.btn_add_product);
-        dbHelper = DBHelper.getInstance(this);
+        repository = ProductRepository.getInstance(this);
 
         // Check if editing existing product
         setupIntentData();
@@ -55,46 +65,135 @@ public class AddProductActivity extends AppCompatActivity {
     }
 
     private void setupIntentData() {
-        Intent intent = getIntent();
-        productId = intent.getIntExtra("productId", -1);
+        productId = getIntent().getIntExtra(EXTRA_PRODUCT_ID, -1);
 
         if (productId != -1) {
-            edtProductName.setText(intent.getStringExtra("productName"));
-            edtUnits.setText(intent.getStringExtra("productUnits"));
-            edtPrice.setText(intent.getStringExtra("productPrice"));
-
-            String imageUriString = intent.getStringExtra("productImageUri");
-            if (imageUriString != null && !imageUriString.isEmpty()) {
-                imageUri = Uri.parse(imageUriString);
-                imgUpload.setImageURI(imageUri);
-            }
-
             btnAddProduct.setText("Update Product");
+            // Usually a cache hit; saving stays disabled until the fields are filled in
+            btnAddProduct.setEnabled(false);
+            repository.getProduct(productId, this::showProduct);
+        }
+    }
+
+    private void showProduct(ProductModel product) {
+        if (product == null) {
+            Toast.makeText(this, "Product no longer exists", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
         }
+        edtProductName.setText(product.getName());
+        edtUnits.setText(String.valueOf(product.getUnits()));
+        edtPrice.setText(Prices.format(product.getPrice()));
+        edtBarcode.setText(product.getBarcode());
+
+        // A photo picked while the product was loading wins over the stored one
+        if (imageUri == null && product.getParsedImageUri() != null) {
+            imageUri = product.getParsedImageUri();
+            thumbnailPath = product.getThumbnailPath();
+            // Glide decodes off the UI thread; fall back to a downsampled original
+            Object preview = thumbnailPath != null ? new File(thumbnailPath) : imageUri;
+            Glide.with(this)
+                    .load(preview)
+                    .override(ThumbnailGenerator.THUMBNAIL_SIZE_PX)
+                    .centerCrop()
+                    .into(imgUpload);
+        }
+
+        // Saving rewrites the category and tags, so it waits until both are shown
+        repository.getProductCategory(productId, category -> {
+            edtCategory.setText(category);
+            repository.getProductTags(productId, tags -> {
+                edtTags.setText(TextUtils.join(", ", tags));
+                btnAddProduct.setEnabled(true);
+            });
+        });
     }
 
     private void handleProductOperation() {
         String name = edtProductName.getText().toString().trim();
-        String units = edtUnits.getText().toString().trim();
-        String price = edtPrice.getText().toString().trim();
+        String unitsText = edtUnits.getText().toString().trim();
+        String priceText = edtPrice.getText().toString().trim();
 
-        if (!validateInputs(name, units, price)) return;
+        if (!validateInputs(name, unitsText, priceText)) return;
+
+        int units;
+        long price;
+        try {
+            units = Integer.parseInt(unitsText);
+            price = Prices.parse(priceText);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Enter a valid number of units and price", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
         String imageUriString = imageUri != null ? imageUri.toString() : null;
+        String barcodeText = edtBarcode.getText().toString().trim();
+        String barcode = barcodeText.isEmpty() ? null : barcodeText;
+        String categoryText = edtCategory.getText().toString().trim();
+        String category = categoryText.isEmpty() ? null : categoryText;
+        ArrayList<String> tags = parseTags(edtTags.getText().toString());
 
-        boolean success;
-        if (productId != -1) {
-            success = dbHelper.updateProduct(productId, name, units, price, imageUriString);
-        } else {
-            success = dbHelper.insertProduct(name, units, price, imageUriString);
+        // Guard against double taps while the write is in flight
+        btnAddProduct.setEnabled(false);
+        DbCallback<Boolean> onDone = success -> {
+            if (success) {
+                // Open screens hear about the change through ProductEvents
+                unsavedThumbnailPath = null;
+                finish();
+            } else {
+                btnAddProduct.setEnabled(true);
+                Toast.makeText(this, "Operation failed", Toast.LENGTH_SHORT).show();
+            }
+        };
+        // The unique index would reject a taken barcode anyway; checking first names the owner
+        checkBarcodeAvailable(barcode, available -> {
+            if (!available) {
+                btnAddProduct.setEnabled(true);
+                return;
+            }
+            if (productId != -1) {
+                repository.updateProduct(productId, name, units, price, imageUriString, thumbnailPath,
+                        barcode, category, tags, onDone);
+            } else {
+                // Duplicate names are usually answered by the product cache without touching disk
+                repository.checkIfProductExists(name, exists -> {
+                    if (exists) {
+                        btnAddProduct.setEnabled(true);
+                        Toast.makeText(this, "Product already exists", Toast.LENGTH_SHORT).show();
+                    } else {
+                        repository.insertProduct(name, units, price, imageUriString, thumbnailPath,
+                                barcode, category, tags, onDone);
+                    }
+                });
+            }
+        });
+    }
+
+    private void checkBarcodeAvailable(String barcode, DbCallback<Boolean> callback) {
+        if (barcode == null) {
+            callback.onResult(true);
+            return;
         }
+        repository.getProductByBarcode(barcode, owner -> {
+            if (owner != null && owner.getId() != productId) {
+                Toast.makeText(this, "Barcode already used by " + owner.getName(), Toast.LENGTH_SHORT).show();
+                callback.onResult(false);
+            } else {
+                callback.onResult(true);
+            }
+        });
+    }
 
-        if (success) {
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, "Operation failed", Toast.LENGTH_SHORT).show();
+    // "Organic, local ,, vegan" -> [Organic, local, vegan]
+    private static ArrayList<String> parseTags(String text) {
+        ArrayList<String> tags = new ArrayList<>();
+        for (String tag : text.split(",")) {
+            tag = tag.trim();
+            if (!tag.isEmpty()) {
+                tags.add(tag);
+            }
         }
+        return tags;
     }
 
     private boolean validateInputs(String name, String units, String price) {
@@ -143,23 +242,53 @@ public class AddProductActivity extends AppCompatActivity {
                             Intent.FLAG_GRANT_READ_URI_PERMISSION
                     );
 
-                    // Load the image safely
-                    InputStream inputStream = getContentResolver().openInputStream(uri);
-                    Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-                    imgUpload.setImageBitmap(bitmap);
-                    if (inputStream != null) {
-                        inputStream.close();
-                    }
-
                     imageUri = uri;
+                    // The old thumbnail belongs to the old image; until this one's is ready, save
+                    // with none and let the startup backfill fill it in if generation never finishes
+                    thumbnailPath = null;
+                    if (unsavedThumbnailPath != null) {
+                        repository.discardThumbnail(unsavedThumbnailPath);
+                        unsavedThumbnailPath = null;
+                    }
                 } catch (Exception e) {
                     Log.e(TAG, "Error loading image", e);
                     Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+                    return;
                 }
+
+                // Only a small thumbnail is decoded; the grid and this preview both use it
+                btnAddProduct.setEnabled(false);
+                repository.createThumbnail(uri, path -> {
+                    btnAddProduct.setEnabled(true);
+                    // Also drop it if another image was picked while this one was being decoded
+                    if (isDestroyed() || !uri.equals(imageUri)) {
+                        repository.discardThumbnail(path);
+                        return;
+                    }
+                    if (path == null) {
+                        Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    if (unsavedThumbnailPath != null) {
+                        repository.discardThumbnail(unsavedThumbnailPath);
+                    }
+                    unsavedThumbnailPath = path;
+                    thumbnailPath = path;
+                    Glide.with(this).load(new File(path)).into(imgUpload);
+                });
             }
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (isFinishing() && unsavedThumbnailPath != null) {
+            repository.discardThumbnail(unsavedThumbnailPath);
+            unsavedThumbnailPath = null;
+        }
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions,
                                            @NonNull int[] grantResults) {
@@ -0,0 +1,82 @@
+package com.devmats.easyshop;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shared thread pools for the app.
+// All SQLite and file I/O goes through diskIO(); results are handed back with mainThread().
+public final class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    // The database runs in WAL mode on one long-lived connection pool, so a few workers let
+    // page loads and searches proceed while a write or import holds the writer connection
+    static final int DISK_IO_THREADS = 3;
+
+    private static final ExecutorService diskIO =
+            Executors.newFixedThreadPool(DISK_IO_THREADS, new NamedThreadFactory("easyshop-io"));
+    private static final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    private AppExecutors() {
+    }
+
+    public static ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    // Runs task on the disk executor and delivers its result to callback on the main thread.
+    // If the task throws, the callback gets null instead.
+    public static <T> void runInBackground(Callable<T> task, DbCallback<T> callback) {
+        runInBackground(task, null, callback);
+    }
+
+    // As above, but a task that throws delivers failureResult. The exception is logged rather
+    // than rethrown: on a pool thread it would kill the process, and the callback would never
+    // run, leaving the caller waiting (a pager stuck loading, a save button left disabled).
+    public static <T> void runInBackground(Callable<T> task, T failureResult, DbCallback<T> callback) {
+        diskIO.execute(() -> {
+            T result;
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Background task failed", e);
+                result = failureResult;
+            }
+            if (callback != null) {
+                T delivered = result;
+                mainThread.post(() -> callback.onResult(delivered));
+            }
+        });
+    }
+
+    public static void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainThread.post(runnable);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.devmats.easyshop;
+
+// Picks barcode scans out of hardware key presses. A keyboard-wedge scanner "types" the code as
+// a burst of key events a few milliseconds apart and ends it with Enter or Tab; a person at a
+// keyboard is an order of magnitude slower. Characters arriving further apart than the gap
+// start a new sequence, and a terminator only yields a code when the whole sequence was a
+// burst of at least the minimum length.
+// No Android types, so it can be driven with simulated key timings in plain unit tests.
+public class BarcodeWedgeDetector {
+
+    // Scanners typically send a key every 5-20 ms; the fastest typists manage about 60 ms
+    public static final long DEFAULT_MAX_KEY_GAP_MS = 40;
+    // Shorter than any EAN-8/UPC-E code, long enough that two quick keystrokes aren't a scan
+    public static final int DEFAULT_MIN_LENGTH = 4;
+    private static final int MAX_LENGTH = 64;
+
+    private final long maxKeyGapMillis;
+    private final int minLength;
+    private final StringBuilder buffer = new StringBuilder(MAX_LENGTH);
+    private long lastKeyMillis;
+
+    public BarcodeWedgeDetector() {
+        this(DEFAULT_MAX_KEY_GAP_MS, DEFAULT_MIN_LENGTH);
+    }
+
+    public BarcodeWedgeDetector(long maxKeyGapMillis, int minLength) {
+        this.maxKeyGapMillis = maxKeyGapMillis;
+        this.minLength = minLength;
+    }
+
+    // A printable character pressed at eventTimeMillis (KeyEvent.getEventTime())
+    public void onCharacter(char c, long eventTimeMillis) {
+        if (buffer.length() > 0 && eventTimeMillis - lastKeyMillis > maxKeyGapMillis) {
+            buffer.setLength(0);
+        }
+        // Nothing that long is a barcode; drop it rather than grow without bound
+        if (buffer.length() == MAX_LENGTH) {
+            buffer.setLength(0);
+        }
+        buffer.append(c);
+        lastKeyMillis = eventTimeMillis;
+    }
+
+    // Enter or Tab. Returns the scanned code, or null when the keys before it were typed by hand.
+    public String onTerminator(long eventTimeMillis) {
+        String code = null;
+        if (buffer.length() >= minLength && eventTimeMillis - lastKeyMillis <= maxKeyGapMillis) {
+            code = buffer.toString();
+        }
+        reset();
+        return code;
+    }
+
+    public void reset() {
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.devmats.easyshop;
+
+import android.os.Bundle;
+import android.view.KeyEvent;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+
+// The counter screen. Besides editing lines by hand it takes a keyboard-wedge barcode scanner:
+// a scan is picked out of the hardware key stream by BarcodeWedgeDetector, looked up on the
+// barcode index and added to the cart without touching the screen.
+public class CartActivity extends AppCompatActivity {
+
+    private SalesRepository salesRepository;
+    private final BarcodeWedgeDetector scanDetector = new BarcodeWedgeDetector();
+    // Scans and edits can finish out of order on the disk pool; only the newest cart read is shown
+    private int cartGeneration = 0;
+    private CartAdapter adapter;
+    private TextView txtTotal, txtEmpty;
+    private Button btnCheckout;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_cart);
+
+        salesRepository = SalesRepository.getInstance(this);
+        txtTotal = findViewById(R.id.txt_cart_total);
+        txtEmpty = findViewById(R.id.txt_cart_empty);
+        btnCheckout = findViewById(R.id.btn_checkout);
+
+        RecyclerView recyclerView = findViewById(R.id.recycler_view_cart);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new CartAdapter((item, quantity) ->
+                salesRepository.setCartQuantity(item.getProductId(), quantity, latestCart()));
+        recyclerView.setAdapter(adapter);
+
+        btnCheckout.setOnClickListener(v -> checkout());
+        btnCheckout.setEnabled(false);
+        loadCart();
+    }
+
+    // Scanner keys arrive as hardware key events. This screen has no text fields, so printable
+    // keys are all taken by the detector; Enter is only swallowed when it completes a scan, so
+    // a person can still press a focused button with it.
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        if (event.getAction() == KeyEvent.ACTION_DOWN) {
+            int keyCode = event.getKeyCode();
+            if (keyCode == KeyEvent.KEYCODE_ENTER || keyCode == KeyEvent.KEYCODE_NUMPAD_ENTER
+                    || keyCode == KeyEvent.KEYCODE_TAB) {
+                String barcode = scanDetector.onTerminator(event.getEventTime());
+                if (barcode != null) {
+                    onBarcodeScanned(barcode);
+                    return true;
+                }
+            } else {
+                int c = event.getUnicodeChar();
+                if (c != 0 && !Character.isISOControl(c)) {
+                    scanDetector.onCharacter((char) c, event.getEventTime());
+                    return true;
+                }
+            }
+        }
+        return super.dispatchKeyEvent(event);
+    }
+
+    private void onBarcodeScanned(String barcode) {
+        salesRepository.addToCartByBarcode(barcode, product -> {
+            if (product == null) {
+                Toast.makeText(this, "No product with barcode " + barcode, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            loadCart();
+        });
+    }
+
+    private void loadCart() {
+        salesRepository.getCartItems(latestCart());
+    }
+
+    // A callback that only shows the cart if no newer read was started after it
+    private DbCallback<ArrayList<CartItem>> latestCart() {
+        int generation = ++cartGeneration;
+        return items -> {
+            if (generation == cartGeneration) {
+                showCart(items);
+            }
+        };
+    }
+
+    private void showCart(ArrayList<CartItem> items) {
+        adapter.submitList(items);
+        long total = 0;
+        for (CartItem item : items) {
+            total += item.getLineTotal();
+        }
+        txtTotal.setText("Total: ৳ " + Prices.format(total));
+        txtEmpty.setVisibility(items.isEmpty() ? View.VISIBLE : View.GONE);
+        btnCheckout.setEnabled(!items.isEmpty());
+    }
+
+    private void checkout() {
+        // Guard against double taps while the sale is being written
+        btnCheckout.setEnabled(false);
+        salesRepository.checkout(result -> {
+            if (result.isSuccessful()) {
+                Toast.makeText(this, "Sold " + result.itemCount + " items for ৳ " + Prices.format(result.total),
+                        Toast.LENGTH_LONG).show();
+                finish();
+            } else {
+                Toast.makeText(this, result.error, Toast.LENGTH_LONG).show();
+                // Stock may have changed; show the current numbers
+                loadCart();
+            }
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.devmats.easyshop;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+public class CartAdapter extends ListAdapter<CartItem, CartAdapter.CartViewHolder> {
+
+    // Called with the line and its new quantity; zero removes the line
+    public interface QuantityListener {
+        void onQuantityChanged(CartItem item, int quantity);
+    }
+
+    private static final DiffUtil.ItemCallback<CartItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<CartItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+                    return oldItem.getProductId() == newItem.getProductId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    private final QuantityListener listener;
+
+    public CartAdapter(QuantityListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public CartViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.cart_row, parent, false);
+        CartViewHolder holder = new CartViewHolder(view);
+        holder.decrease.setOnClickListener(v -> changeQuantity(holder, -1));
+        holder.increase.setOnClickListener(v -> changeQuantity(holder, 1));
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull CartViewHolder holder, int position) {
+        CartItem item = getItem(position);
+        holder.name.setText(item.getName());
+        holder.detail.setText(item.getQuantity() + " × ৳ " + Prices.format(item.getUnitPrice())
+                + "  (" + item.getUnitsInStock() + " in stock)");
+        holder.quantity.setText(String.valueOf(item.getQuantity()));
+        holder.lineTotal.setText("৳ " + Prices.format(item.getLineTotal()));
+    }
+
+    private void changeQuantity(CartViewHolder holder, int delta) {
+        int position = holder.getAdapterPosition();
+        if (position != RecyclerView.NO_POSITION) {
+            CartItem item = getItem(position);
+            listener.onQuantityChanged(item, item.getQuantity() + delta);
+        }
+    }
+
+    public static class CartViewHolder extends RecyclerView.ViewHolder {
+        TextView name, detail, quantity, lineTotal;
+        Button decrease, increase;
+
+        public CartViewHolder(@NonNull View itemView) {
+            super(itemView);
+            name = itemView.findViewById(R.id.cart_product_name);
+            detail = itemView.findViewById(R.id.cart_line_detail);
+            quantity = itemView.findViewById(R.id.cart_quantity);
+            lineTotal = itemView.findViewById(R.id.cart_line_total);
+            decrease = itemView.findViewById(R.id.btn_cart_decrease);
+            increase = itemView.findViewById(R.id.btn_cart_increase);
+        }
+    }
+}
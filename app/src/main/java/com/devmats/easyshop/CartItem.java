@@ -0,0 +1,61 @@
+package com.devmats.easyshop;
+
+import java.util.Objects;
+
+// One line of the shopping cart, joined with the product's current name, price and stock
+public class CartItem {
+    private final int productId;
+    private final String name;
+    private final long unitPrice;   // minor currency units, see Prices
+    private final int quantity;
+    private final int unitsInStock;
+
+    public CartItem(int productId, String name, long unitPrice, int quantity, int unitsInStock) {
+        this.productId = productId;
+        this.name = name;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+        this.unitsInStock = unitsInStock;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getUnitsInStock() {
+        return unitsInStock;
+    }
+
+    public long getLineTotal() {
+        return unitPrice * quantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CartItem)) return false;
+        CartItem other = (CartItem) o;
+        return productId == other.productId
+                && Objects.equals(name, other.name)
+                && unitPrice == other.unitPrice
+                && quantity == other.quantity
+                && unitsInStock == other.unitsInStock;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, name, unitPrice, quantity, unitsInStock);
+    }
+}
@@ -0,0 +1,35 @@
+package com.devmats.easyshop;
+
+import java.util.ArrayList;
+
+// Categories and tags for the home filter bar with their product counts, read from the
+// counters the facet triggers keep up to date (see DBHelper.createFacetTables)
+public class CatalogFacets {
+
+    public static class Facet {
+        public final long id;
+        public final String name;
+        public final int productCount;
+        public final int inStockCount;
+
+        public Facet(long id, String name, int productCount, int inStockCount) {
+            this.id = id;
+            this.name = name;
+            this.productCount = productCount;
+            this.inStockCount = inStockCount;
+        }
+
+        // The count to show next to the chip, matching what the grid would list
+        public int getCount(boolean inStockOnly) {
+            return inStockOnly ? inStockCount : productCount;
+        }
+    }
+
+    public final ArrayList<Facet> categories;   // by name
+    public final ArrayList<Facet> tags;         // most used first
+
+    public CatalogFacets(ArrayList<Facet> categories, ArrayList<Facet> tags) {
+        this.categories = categories;
+        this.tags = tags;
+    }
+}
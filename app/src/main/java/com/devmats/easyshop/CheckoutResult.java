@@ -0,0 +1,35 @@
+package com.devmats.easyshop;
+
+// Outcome of DBHelper.checkout(). On failure nothing was written and the cart is unchanged.
+public class CheckoutResult {
+    public final long saleId;          // -1 when the checkout failed
+    public final long total;           // minor currency units
+    public final int itemCount;
+    // Set when a product no longer had enough units; the whole sale was rolled back
+    public final String outOfStockProduct;
+    public final String error;
+
+    private CheckoutResult(long saleId, long total, int itemCount, String outOfStockProduct, String error) {
+        this.saleId = saleId;
+        this.total = total;
+        this.itemCount = itemCount;
+        this.outOfStockProduct = outOfStockProduct;
+        this.error = error;
+    }
+
+    static CheckoutResult success(long saleId, long total, int itemCount) {
+        return new CheckoutResult(saleId, total, itemCount, null, null);
+    }
+
+    static CheckoutResult outOfStock(String productName) {
+        return new CheckoutResult(-1, 0, 0, productName, "Not enough " + productName + " in stock");
+    }
+
+    static CheckoutResult failed(String error) {
+        return new CheckoutResult(-1, 0, 0, null, error);
+    }
+
+    public boolean isSuccessful() {
+        return saleId != -1;
+    }
+}
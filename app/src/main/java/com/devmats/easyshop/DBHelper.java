@@ -3,47 +3,139 @@ package com.devmats.easyshop;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.util.Log;
-import android.widget.Toast;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
 
 public class DBHelper extends SQLiteOpenHelper {
     private static final String TAG = "DBHelper";
 
     // Database Info
     private static final String DATABASE_NAME = "EasyShopDB";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 12;
 
     // Table Names
     private static final String TABLE_USERS = "users";
     private static final String TABLE_PRODUCTS = "products";
+    private static final String TABLE_PRODUCTS_FTS = "products_fts";
+    private static final String TABLE_CART = "cart";
+    private static final String TABLE_SALES = "sales";
+    private static final String TABLE_SALE_ITEMS = "sale_items";
+    private static final String TABLE_INVENTORY_TOTALS = "inventory_totals";
+    private static final String TABLE_DAILY_SALES = "daily_sales";
+    private static final String TABLE_DAILY_PRODUCT_SALES = "daily_product_sales";
+    private static final String TABLE_CATEGORIES = "categories";
+    private static final String TABLE_TAGS = "tags";
+    private static final String TABLE_PRODUCT_TAGS = "product_tags";
 
-    // Common Column
-    private static final String KEY_ID = "id";
+    // Common Column (product columns are shared with ProductRowMapper)
+    static final String KEY_ID = "id";
 
     // User Table Columns
     private static final String KEY_USERNAME = "username";
     private static final String KEY_EMAIL = "email";
-    private static final String KEY_PASSWORD = "password";
+    private static final String KEY_PASSWORD = "password";  // legacy plaintext, emptied once hashed
+    private static final String KEY_PASSWORD_SALT = "salt";
+    private static final String KEY_PASSWORD_HASH = "passwordHash";
+    private static final String KEY_PASSWORD_ITERATIONS = "iterations";  // 0 = not hashed yet
+
+    // Cart / Sales Table Columns
+    private static final String KEY_PRODUCT_ID = "product_id";
+    private static final String KEY_SALE_ID = "sale_id";
+    private static final String KEY_QUANTITY = "quantity";
+    private static final String KEY_UNIT_PRICE = "unit_price";
+    private static final String KEY_TIMESTAMP = "timestamp";
+    private static final String KEY_SALE_TOTAL = "total";
+    private static final String KEY_SALE_ITEM_COUNT = "item_count";
+
+    // Rollup Table Columns
+    private static final String KEY_DAY = "day";    // local calendar day, see dayOf()
+    private static final String KEY_PRODUCT_COUNT = "product_count";
+    private static final String KEY_TOTAL_UNITS = "total_units";
+    private static final String KEY_STOCK_VALUE = "stock_value";
+    private static final String KEY_LOW_STOCK_COUNT = "low_stock_count";
+    private static final String KEY_REVENUE = "revenue";
+    private static final String KEY_SALE_COUNT = "sale_count";
+
+    // Category / Tag Table Columns (product_count is shared with the rollups)
+    private static final String KEY_FACET_NAME = "name";
+    private static final String KEY_IN_STOCK_COUNT = "in_stock_count";
+    private static final String KEY_TAG_ID = "tag_id";
+
+    // Products with fewer units than this count as low stock on the dashboard
+    public static final int LOW_STOCK_THRESHOLD = 5;
+    private static final int TOP_SELLERS = 5;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
 
     // Product Table Columns
-    private static final String KEY_PRODUCT_NAME = "name";
-    private static final String KEY_PRODUCT_UNITS = "units";
-    private static final String KEY_PRODUCT_PRICE = "price";
-    private static final String KEY_PRODUCT_IMAGE_URI = "imageUri";  // Changed back to URI
+    static final String KEY_PRODUCT_NAME = "name";
+    static final String KEY_PRODUCT_UNITS = "units";
+    static final String KEY_PRODUCT_PRICE = "price";
+    static final String KEY_PRODUCT_IMAGE_URI = "imageUri";  // Changed back to URI
+    static final String KEY_PRODUCT_THUMBNAIL = "thumbnailPath";
+    static final String KEY_PRODUCT_BARCODE = "barcode";
+    private static final String KEY_CATEGORY_ID = "category_id";   // null = uncategorised
+
+    // Upper bound on products kept in memory by the write-through cache
+    private static final int PRODUCT_CACHE_SIZE = 500;
+    // Products read per query while generating missing thumbnails
+    private static final int THUMBNAIL_BACKFILL_BATCH = 50;
+
+    // Point lookup on idx_product_name_nocase; counting through the unique index never
+    // touches the table and needs no cursor
+    static final String SQL_PRODUCT_NAME_EXISTS = "SELECT COUNT(*) FROM " + TABLE_PRODUCTS
+            + " WHERE " + KEY_PRODUCT_NAME + " = ? COLLATE NOCASE";
+
+    // Scanner lookup: a point seek on the partial unique index idx_product_barcode
+    static final String SQL_PRODUCT_ID_BY_BARCODE = "SELECT " + KEY_ID + " FROM " + TABLE_PRODUCTS
+            + " WHERE " + KEY_PRODUCT_BARCODE + " = ?";
+
+    // Stands in for the calling method in main-thread access counts of release builds
+    private static final String MAIN_THREAD_CALLER = "(main thread)";
 
     private static DBHelper instance;
     private SQLiteDatabase database;
+    private SQLiteStatement productNameExistsStatement;
+    private SQLiteStatement productIdByBarcodeStatement;
+    private final ProductCache productCache = new ProductCache(PRODUCT_CACHE_SIZE);
+    private final ProductEvents productEvents = new ProductEvents();
+    private final DbMetrics dbMetrics = new DbMetrics();
+    private PasswordHasher passwordHasher = new PasswordHasher();
 
     private final Context context;
     private boolean isDatabaseOpen = false;
 
     // Private constructor to prevent direct instantiation
     private DBHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    // Lets tests run against a throwaway database file instead of the singleton's
+    @VisibleForTesting
+    DBHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
         this.context = context.getApplicationContext();
     }
 
@@ -59,8 +151,25 @@ public class DBHelper extends SQLiteOpenHelper {
         return instance;
     }
 
-    // Open the database connection
+    // WAL lets the page/search readers run on their own connections while a write is in progress
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    // Open the database connection. It is opened once and kept for the life of the process;
+    // write methods must not call close(), which would throw away the connection pool and
+    // its compiled statement cache.
     public synchronized SQLiteDatabase openDatabase() {
+        // Every query and write starts here, so this is where main-thread access is caught.
+        // Naming the caller needs a stack walk, which is only worth paying for in debug builds;
+        // release builds still count the calls, under one name.
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            String caller = BuildConfig.DEBUG
+                    ? new Throwable().getStackTrace()[1].getMethodName() : MAIN_THREAD_CALLER;
+            dbMetrics.recordMainThreadAccess(caller);
+        }
         if (database == null || !database.isOpen()) {
             database = getWritableDatabase();
             isDatabaseOpen = true;
@@ -70,6 +179,14 @@ public class DBHelper extends SQLiteOpenHelper {
 
     @Override
     public synchronized void close() {
+        if (productNameExistsStatement != null) {
+            productNameExistsStatement.close();
+            productNameExistsStatement = null;
+        }
+        if (productIdByBarcodeStatement != null) {
+            productIdByBarcodeStatement.close();
+            productIdByBarcodeStatement = null;
+        }
         super.close();
         if (database != null && database.isOpen()) {
             database.close();
@@ -86,22 +203,23 @@ public class DBHelper extends SQLiteOpenHelper {
                     + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
                     + KEY_USERNAME + " TEXT NOT NULL,"
                     + KEY_EMAIL + " TEXT UNIQUE NOT NULL,"
-                    + KEY_PASSWORD + " TEXT NOT NULL)";
-
-            // In table creation
-            String CREATE_PRODUCTS_TABLE = "CREATE TABLE " + TABLE_PRODUCTS + "("
-                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + KEY_PRODUCT_NAME + " TEXT UNIQUE NOT NULL,"
-                    + KEY_PRODUCT_UNITS + " TEXT NOT NULL,"
-                    + KEY_PRODUCT_PRICE + " TEXT NOT NULL,"
-                    + KEY_PRODUCT_IMAGE_URI + " TEXT)";  // Changed from IMAGE_URI to IMAGE
+                    + KEY_PASSWORD + " TEXT NOT NULL,"
+                    + KEY_PASSWORD_SALT + " BLOB,"
+                    + KEY_PASSWORD_HASH + " BLOB,"
+                    + KEY_PASSWORD_ITERATIONS + " INTEGER NOT NULL DEFAULT 0)";
 
             db.execSQL(CREATE_USERS_TABLE);
-            db.execSQL(CREATE_PRODUCTS_TABLE);
+            db.execSQL(createProductsTableSql(TABLE_PRODUCTS));
 
             // Add indexes for better performance on frequently queried columns
             db.execSQL("CREATE INDEX IF NOT EXISTS idx_email ON " + TABLE_USERS + " (" + KEY_EMAIL + ")");
-            db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_name ON " + TABLE_PRODUCTS + " (" + KEY_PRODUCT_NAME + ")");
+            createProductIndexes(db);
+            createProductSearchIndex(db);
+            createSalesTables(db);
+            createRollupTables(db);
+            createSalesHistoryIndex(db);
+            createFacetTables(db);
+            createProductBarcodeIndex(db);
         } catch (SQLException e) {
             Log.e(TAG, "Error creating tables: " + e.getMessage());
         }
@@ -109,79 +227,488 @@ public class DBHelper extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        try {
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_PRODUCTS);
-            onCreate(db);
-        } catch (SQLException e) {
-            Log.e(TAG, "Error upgrading database: " + e.getMessage());
-        }
+        // Exceptions are deliberately not caught here: a failed step must roll back the
+        // upgrade transaction instead of leaving a half-migrated schema at the new version
+        MigrationRunner runner = createMigrationRunner();
+        runner.run(db, oldVersion, newVersion);
+        // Kept for the diagnostics screen; the runner itself is discarded
+        dbMetrics.recordMigrations(runner.getLastRunTimings());
     }
 
-    // ==================== USER MANAGEMENT METHODS ====================
+    // Ordered, non-destructive schema steps. Every DATABASE_VERSION bump adds one entry here
+    // and the matching change to onCreate.
+    @VisibleForTesting
+    MigrationRunner createMigrationRunner() {
+        ArrayList<Migration> migrations = new ArrayList<>();
 
-    public boolean insertUser(String username, String email, String password) {
-        if (email == null || username == null || password == null) {
-            showToast("Invalid input data.");
-            return false;
-        }
+        migrations.add(new Migration(1, 2) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                createProductSearchIndex(db);
+                // Index the rows that existed before the triggers did
+                db.execSQL("INSERT INTO " + TABLE_PRODUCTS_FTS + "(" + TABLE_PRODUCTS_FTS + ") VALUES('rebuild')");
+            }
+        });
 
-        try {
-            SQLiteDatabase db = openDatabase();
+        migrations.add(new Migration(2, 3) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // Names used to be unique only case-sensitively; rename the later of any
+                // "Apple"/"apple" pairs so the case-insensitive unique index can be built
+                db.execSQL("UPDATE " + TABLE_PRODUCTS + " SET " + KEY_PRODUCT_NAME + " = "
+                        + KEY_PRODUCT_NAME + " || ' (' || " + KEY_ID + " || ')'"
+                        + " WHERE " + KEY_ID + " NOT IN (SELECT MIN(" + KEY_ID + ") FROM " + TABLE_PRODUCTS
+                        + " GROUP BY " + KEY_PRODUCT_NAME + " COLLATE NOCASE)");
+                db.execSQL("DROP INDEX IF EXISTS idx_product_name");
+                createProductNameIndex(db);
+            }
+        });
 
-            if (checkUserExists(email)) {
-                showToast("Email already registered");
-                return false;
+        migrations.add(new Migration(3, 4) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // price/units were TEXT; store whole minor units and counts so SQLite can sort,
+                // sum and range-scan them. Rows that don't parse end up as 0 rather than failing.
+                // The products schema exactly as of v4; later columns are added by later steps
+                String createV4Products = "CREATE TABLE " + TABLE_PRODUCTS + "_new("
+                        + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + KEY_PRODUCT_NAME + " TEXT UNIQUE NOT NULL,"
+                        + KEY_PRODUCT_UNITS + " INTEGER NOT NULL DEFAULT 0,"
+                        + KEY_PRODUCT_PRICE + " INTEGER NOT NULL DEFAULT 0,"
+                        + KEY_PRODUCT_IMAGE_URI + " TEXT)";
+                TableRebuilder.rebuild(db, TABLE_PRODUCTS, KEY_ID, createV4Products,
+                        KEY_ID + ", " + KEY_PRODUCT_NAME + ", " + KEY_PRODUCT_UNITS + ", "
+                                + KEY_PRODUCT_PRICE + ", " + KEY_PRODUCT_IMAGE_URI,
+                        KEY_ID + ", " + KEY_PRODUCT_NAME + ", "
+                                + "CAST(" + KEY_PRODUCT_UNITS + " AS INTEGER), "
+                                + "CAST(ROUND(CAST(" + KEY_PRODUCT_PRICE + " AS REAL) * 100) AS INTEGER), "
+                                + KEY_PRODUCT_IMAGE_URI,
+                        TableRebuilder.DEFAULT_BATCH_SIZE);
+                // Indexes and triggers went with the old table; the FTS rows keep their docids
+                createProductIndexes(db);
+                createProductSearchIndex(db);
             }
+        });
 
-            ContentValues values = new ContentValues();
-            values.put(KEY_USERNAME, username);
-            values.put(KEY_EMAIL, email);
-            values.put(KEY_PASSWORD, password);
+        migrations.add(new Migration(4, 5) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // Filled in the background by backfillThumbnails() for existing products
+                db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + KEY_PRODUCT_THUMBNAIL + " TEXT");
+            }
+        });
 
-            long result = db.insert(TABLE_USERS, null, values);
+        migrations.add(new Migration(5, 6) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // Existing plaintext passwords are hashed one by one on their next successful
+                // login (see checkUser); hashing them all here would stall the upgrade
+                db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + KEY_PASSWORD_SALT + " BLOB");
+                db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + KEY_PASSWORD_HASH + " BLOB");
+                db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + KEY_PASSWORD_ITERATIONS
+                        + " INTEGER NOT NULL DEFAULT 0");
+            }
+        });
 
-            if (result == -1) {
-                showToast("Registration failed");
-                return false;
-            } else {
-                showToast("Registration successful");
-                return true;
+        migrations.add(new Migration(6, 7) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                createSalesTables(db);
             }
-        } catch (SQLException e) {
-            Log.e(TAG, "Error inserting user: " + e.getMessage());
-            if (e.getMessage().contains("UNIQUE constraint failed")) {
-                showToast("Email already registered");
+        });
+
+        migrations.add(new Migration(7, 8) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                createRollupTables(db);
+                // One-off scan to seed the rollups; from here on they are maintained incrementally
+                db.execSQL("UPDATE " + TABLE_INVENTORY_TOTALS + " SET "
+                        + KEY_PRODUCT_COUNT + " = (SELECT COUNT(*) FROM " + TABLE_PRODUCTS + "), "
+                        + KEY_TOTAL_UNITS + " = (SELECT IFNULL(SUM(" + KEY_PRODUCT_UNITS + "), 0) FROM " + TABLE_PRODUCTS + "), "
+                        + KEY_STOCK_VALUE + " = (SELECT IFNULL(SUM(" + KEY_PRODUCT_UNITS + " * " + KEY_PRODUCT_PRICE + "), 0) FROM " + TABLE_PRODUCTS + "), "
+                        + KEY_LOW_STOCK_COUNT + " = (SELECT COUNT(*) FROM " + TABLE_PRODUCTS
+                        + " WHERE " + KEY_PRODUCT_UNITS + " < " + LOW_STOCK_THRESHOLD + ")");
+                seedDailyRollups(db);
             }
-            return false;
+        });
+
+        migrations.add(new Migration(8, 9) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                createSalesHistoryIndex(db);
+            }
+        });
+
+        migrations.add(new Migration(9, 10) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // Existing products start uncategorised and untagged, so every count starts at zero
+                db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + KEY_CATEGORY_ID + " INTEGER");
+                createFacetTables(db);
+            }
+        });
+
+        migrations.add(new Migration(10, 11) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                db.execSQL("ALTER TABLE " + TABLE_PRODUCTS + " ADD COLUMN " + KEY_PRODUCT_BARCODE + " TEXT");
+                createProductBarcodeIndex(db);
+            }
+        });
+
+        migrations.add(new Migration(11, 12) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                // The search triggers used to fire on every update; recreate them as UPDATE OF name.
+                // The index contents are unchanged, so no rebuild is needed.
+                db.execSQL("DROP TRIGGER IF EXISTS products_fts_bu");
+                db.execSQL("DROP TRIGGER IF EXISTS products_fts_au");
+                createProductSearchIndex(db);
+            }
+        });
+
+        return new MigrationRunner(migrations);
+    }
+
+    private static String createProductsTableSql(String tableName) {
+        return "CREATE TABLE " + tableName + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_PRODUCT_NAME + " TEXT UNIQUE NOT NULL,"
+                + KEY_PRODUCT_UNITS + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_PRODUCT_PRICE + " INTEGER NOT NULL DEFAULT 0,"   // minor currency units
+                + KEY_PRODUCT_IMAGE_URI + " TEXT,"
+                + KEY_PRODUCT_THUMBNAIL + " TEXT,"
+                + KEY_CATEGORY_ID + " INTEGER,"
+                + KEY_PRODUCT_BARCODE + " TEXT)";
+    }
+
+    // A single cart (this is a one-counter shop) plus the sales ledger. Sale items copy the
+    // product name and price, so history survives later edits or deletion of the product.
+    private void createSalesTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_CART + "("
+                + KEY_PRODUCT_ID + " INTEGER PRIMARY KEY,"
+                + KEY_QUANTITY + " INTEGER NOT NULL CHECK (" + KEY_QUANTITY + " > 0))");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SALES + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_TIMESTAMP + " INTEGER NOT NULL,"
+                + KEY_SALE_TOTAL + " INTEGER NOT NULL,"           // minor currency units
+                + KEY_SALE_ITEM_COUNT + " INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SALE_ITEMS + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_SALE_ID + " INTEGER NOT NULL,"
+                + KEY_PRODUCT_ID + " INTEGER NOT NULL,"
+                + KEY_PRODUCT_NAME + " TEXT NOT NULL,"
+                + KEY_QUANTITY + " INTEGER NOT NULL,"
+                + KEY_UNIT_PRICE + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_sale_items_sale ON " + TABLE_SALE_ITEMS
+                + " (" + KEY_SALE_ID + ")");
+        // Deleting a product takes it out of the cart as well
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_cart_ad AFTER DELETE ON " + TABLE_PRODUCTS + " BEGIN "
+                + "DELETE FROM " + TABLE_CART + " WHERE " + KEY_PRODUCT_ID + " = old." + KEY_ID + "; END");
+    }
+
+    // Aggregates the dashboard reads instead of scanning products and sales:
+    //  - inventory_totals: one row, kept exact by triggers on every products write
+    //  - daily_sales / daily_product_sales: per-day totals, added to by checkout()
+    // A week is the sum of seven daily rows, so every dashboard query is bounded.
+    private void createRollupTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_INVENTORY_TOTALS + "("
+                + KEY_ID + " INTEGER PRIMARY KEY CHECK (" + KEY_ID + " = 1),"
+                + KEY_PRODUCT_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_TOTAL_UNITS + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_STOCK_VALUE + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_LOW_STOCK_COUNT + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_INVENTORY_TOTALS + " (" + KEY_ID + ") VALUES (1)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_DAILY_SALES + "("
+                + KEY_DAY + " INTEGER PRIMARY KEY,"
+                + KEY_SALE_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_SALE_ITEM_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_REVENUE + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_DAILY_PRODUCT_SALES + "("
+                + KEY_DAY + " INTEGER NOT NULL,"
+                + KEY_PRODUCT_ID + " INTEGER NOT NULL,"
+                + KEY_PRODUCT_NAME + " TEXT NOT NULL,"
+                + KEY_QUANTITY + " INTEGER NOT NULL DEFAULT 0,"
+                + KEY_REVENUE + " INTEGER NOT NULL DEFAULT 0,"
+                + "PRIMARY KEY (" + KEY_DAY + ", " + KEY_PRODUCT_ID + ")) WITHOUT ROWID");
+
+        String low = " < " + LOW_STOCK_THRESHOLD;
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_totals_ai AFTER INSERT ON " + TABLE_PRODUCTS + " BEGIN "
+                + "UPDATE " + TABLE_INVENTORY_TOTALS + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " + 1, "
+                + KEY_TOTAL_UNITS + " = " + KEY_TOTAL_UNITS + " + new." + KEY_PRODUCT_UNITS + ", "
+                + KEY_STOCK_VALUE + " = " + KEY_STOCK_VALUE + " + new." + KEY_PRODUCT_UNITS + " * new." + KEY_PRODUCT_PRICE + ", "
+                + KEY_LOW_STOCK_COUNT + " = " + KEY_LOW_STOCK_COUNT + " + (new." + KEY_PRODUCT_UNITS + low + ")"
+                + " WHERE " + KEY_ID + " = 1; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_totals_ad AFTER DELETE ON " + TABLE_PRODUCTS + " BEGIN "
+                + "UPDATE " + TABLE_INVENTORY_TOTALS + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " - 1, "
+                + KEY_TOTAL_UNITS + " = " + KEY_TOTAL_UNITS + " - old." + KEY_PRODUCT_UNITS + ", "
+                + KEY_STOCK_VALUE + " = " + KEY_STOCK_VALUE + " - old." + KEY_PRODUCT_UNITS + " * old." + KEY_PRODUCT_PRICE + ", "
+                + KEY_LOW_STOCK_COUNT + " = " + KEY_LOW_STOCK_COUNT + " - (old." + KEY_PRODUCT_UNITS + low + ")"
+                + " WHERE " + KEY_ID + " = 1; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_totals_au AFTER UPDATE OF "
+                + KEY_PRODUCT_UNITS + ", " + KEY_PRODUCT_PRICE + " ON " + TABLE_PRODUCTS + " BEGIN "
+                + "UPDATE " + TABLE_INVENTORY_TOTALS + " SET "
+                + KEY_TOTAL_UNITS + " = " + KEY_TOTAL_UNITS + " + new." + KEY_PRODUCT_UNITS + " - old." + KEY_PRODUCT_UNITS + ", "
+                + KEY_STOCK_VALUE + " = " + KEY_STOCK_VALUE + " + new." + KEY_PRODUCT_UNITS + " * new." + KEY_PRODUCT_PRICE
+                + " - old." + KEY_PRODUCT_UNITS + " * old." + KEY_PRODUCT_PRICE + ", "
+                + KEY_LOW_STOCK_COUNT + " = " + KEY_LOW_STOCK_COUNT + " + (new." + KEY_PRODUCT_UNITS + low + ")"
+                + " - (old." + KEY_PRODUCT_UNITS + low + ")"
+                + " WHERE " + KEY_ID + " = 1; END");
+    }
+
+    // Sales history pages newest-first by (timestamp, id) within a date range. getSalesPage()
+    // bounds the range by the page cursor too, so every page starts its scan at the cursor
+    private void createSalesHistoryIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_sales_timestamp ON " + TABLE_SALES
+                + " (" + KEY_TIMESTAMP + ", " + KEY_ID + ")");
+    }
+
+    // Categories (one per product) and tags (any number per product) for the home filter bar.
+    // Each category and tag row carries its own product and in-stock counts, kept exact by
+    // triggers on products and product_tags, so the chip counts are a read of a few small
+    // rows rather than a GROUP BY over the catalog. In stock means units > 0.
+    private void createFacetTables(SQLiteDatabase db) {
+        for (String table : new String[]{TABLE_CATEGORIES, TABLE_TAGS}) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + table + "("
+                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + KEY_FACET_NAME + " TEXT UNIQUE NOT NULL COLLATE NOCASE,"
+                    + KEY_PRODUCT_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                    + KEY_IN_STOCK_COUNT + " INTEGER NOT NULL DEFAULT 0)");
         }
+        // Keyed tag first, so a tag's products come back in id order straight from the table
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PRODUCT_TAGS + "("
+                + KEY_TAG_ID + " INTEGER NOT NULL,"
+                + KEY_PRODUCT_ID + " INTEGER NOT NULL,"
+                + "PRIMARY KEY (" + KEY_TAG_ID + ", " + KEY_PRODUCT_ID + ")) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_tags_product ON " + TABLE_PRODUCT_TAGS
+                + " (" + KEY_PRODUCT_ID + ", " + KEY_TAG_ID + ")");
+        // Covering index for the filtered grid: a category's products in id order, with price
+        // and units alongside so the price and stock filters are checked without reading rows
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_category ON " + TABLE_PRODUCTS
+                + " (" + KEY_CATEGORY_ID + ", " + KEY_ID + ", " + KEY_PRODUCT_PRICE + ", " + KEY_PRODUCT_UNITS + ")");
+
+        String inStock = " > 0)";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_facets_ai AFTER INSERT ON " + TABLE_PRODUCTS + " BEGIN "
+                + "UPDATE " + TABLE_CATEGORIES + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " + 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " + (new." + KEY_PRODUCT_UNITS + inStock
+                + " WHERE " + KEY_ID + " = new." + KEY_CATEGORY_ID + "; END");
+        // Tags go before the row does, while product_tags_ad can still read its units
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_facets_bd BEFORE DELETE ON " + TABLE_PRODUCTS + " BEGIN "
+                + "DELETE FROM " + TABLE_PRODUCT_TAGS + " WHERE " + KEY_PRODUCT_ID + " = old." + KEY_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_facets_ad AFTER DELETE ON " + TABLE_PRODUCTS + " BEGIN "
+                + "UPDATE " + TABLE_CATEGORIES + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " - 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " - (old." + KEY_PRODUCT_UNITS + inStock
+                + " WHERE " + KEY_ID + " = old." + KEY_CATEGORY_ID + "; END");
+        // Only a category change or a product selling out / coming back moves any count
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_facets_au AFTER UPDATE OF "
+                + KEY_CATEGORY_ID + ", " + KEY_PRODUCT_UNITS + " ON " + TABLE_PRODUCTS
+                + " WHEN old." + KEY_CATEGORY_ID + " IS NOT new." + KEY_CATEGORY_ID
+                + " OR (old." + KEY_PRODUCT_UNITS + " > 0) <> (new." + KEY_PRODUCT_UNITS + " > 0) BEGIN "
+                + "UPDATE " + TABLE_CATEGORIES + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " - 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " - (old." + KEY_PRODUCT_UNITS + inStock
+                + " WHERE " + KEY_ID + " = old." + KEY_CATEGORY_ID + "; "
+                + "UPDATE " + TABLE_CATEGORIES + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " + 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " + (new." + KEY_PRODUCT_UNITS + inStock
+                + " WHERE " + KEY_ID + " = new." + KEY_CATEGORY_ID + "; "
+                + "UPDATE " + TABLE_TAGS + " SET "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " + (new." + KEY_PRODUCT_UNITS + inStock
+                + " - (old." + KEY_PRODUCT_UNITS + inStock
+                + " WHERE " + KEY_ID + " IN (SELECT " + KEY_TAG_ID + " FROM " + TABLE_PRODUCT_TAGS
+                + " WHERE " + KEY_PRODUCT_ID + " = new." + KEY_ID + "); END");
+
+        String productInStock = "IFNULL((SELECT " + KEY_PRODUCT_UNITS + " > 0 FROM " + TABLE_PRODUCTS
+                + " WHERE " + KEY_ID + " = %s." + KEY_PRODUCT_ID + "), 0)";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_tags_ai AFTER INSERT ON " + TABLE_PRODUCT_TAGS + " BEGIN "
+                + "UPDATE " + TABLE_TAGS + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " + 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " + " + String.format(productInStock, "new")
+                + " WHERE " + KEY_ID + " = new." + KEY_TAG_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_tags_ad AFTER DELETE ON " + TABLE_PRODUCT_TAGS + " BEGIN "
+                + "UPDATE " + TABLE_TAGS + " SET "
+                + KEY_PRODUCT_COUNT + " = " + KEY_PRODUCT_COUNT + " - 1, "
+                + KEY_IN_STOCK_COUNT + " = " + KEY_IN_STOCK_COUNT + " - " + String.format(productInStock, "old")
+                + " WHERE " + KEY_ID + " = old." + KEY_TAG_ID + "; END");
     }
 
-    public boolean checkUserExists(String email) {
-        if (email == null) {
+    // Builds the daily rollups from the whole sales history, for the 7 -> 8 step. The day of
+    // each sale is worked out in Java with dayOf(), as checkout does: SQL could only apply the
+    // offset in effect today, which puts sales from the other side of a DST change (or made in
+    // another time zone) on a different day than live writes would.
+    private void seedDailyRollups(SQLiteDatabase db) {
+        HashMap<Long, long[]> days = new HashMap<>();    // day -> sale count, item count, revenue
+        try (Cursor cursor = db.rawQuery("SELECT " + KEY_TIMESTAMP + ", " + KEY_SALE_ITEM_COUNT + ", "
+                + KEY_SALE_TOTAL + " FROM " + TABLE_SALES, null)) {
+            while (cursor.moveToNext()) {
+                long day = dayOf(cursor.getLong(0));
+                long[] totals = days.get(day);
+                if (totals == null) {
+                    totals = new long[3];
+                    days.put(day, totals);
+                }
+                totals[0]++;
+                totals[1] += cursor.getLong(1);
+                totals[2] += cursor.getLong(2);
+            }
+        }
+        SQLiteStatement insertDay = db.compileStatement("INSERT INTO " + TABLE_DAILY_SALES + " (" + KEY_DAY + ", "
+                + KEY_SALE_COUNT + ", " + KEY_SALE_ITEM_COUNT + ", " + KEY_REVENUE + ") VALUES (?, ?, ?, ?)");
+        try {
+            for (Map.Entry<Long, long[]> entry : days.entrySet()) {
+                insertDay.bindLong(1, entry.getKey());
+                insertDay.bindLong(2, entry.getValue()[0]);
+                insertDay.bindLong(3, entry.getValue()[1]);
+                insertDay.bindLong(4, entry.getValue()[2]);
+                insertDay.executeInsert();
+            }
+        } finally {
+            insertDay.close();
+        }
+
+        // Per product and day; lines are read oldest first so the latest name wins, as in checkout
+        LinkedHashMap<String, ProductDayTotals> lines = new LinkedHashMap<>();
+        try (Cursor cursor = db.rawQuery("SELECT s." + KEY_TIMESTAMP + ", i." + KEY_PRODUCT_ID + ", i."
+                + KEY_PRODUCT_NAME + ", i." + KEY_QUANTITY + ", i." + KEY_QUANTITY + " * i." + KEY_UNIT_PRICE
+                + " FROM " + TABLE_SALE_ITEMS + " i JOIN " + TABLE_SALES + " s ON s." + KEY_ID + " = i." + KEY_SALE_ID
+                + " ORDER BY i." + KEY_ID, null)) {
+            while (cursor.moveToNext()) {
+                long day = dayOf(cursor.getLong(0));
+                long productId = cursor.getLong(1);
+                String key = day + ":" + productId;
+                ProductDayTotals line = lines.get(key);
+                if (line == null) {
+                    line = new ProductDayTotals(day, productId);
+                    lines.put(key, line);
+                }
+                line.name = cursor.getString(2);
+                line.quantity += cursor.getLong(3);
+                line.revenue += cursor.getLong(4);
+            }
+        }
+        SQLiteStatement insertLine = db.compileStatement("INSERT INTO " + TABLE_DAILY_PRODUCT_SALES + " ("
+                + KEY_DAY + ", " + KEY_PRODUCT_ID + ", " + KEY_PRODUCT_NAME + ", " + KEY_QUANTITY + ", "
+                + KEY_REVENUE + ") VALUES (?, ?, ?, ?, ?)");
+        try {
+            for (ProductDayTotals line : lines.values()) {
+                insertLine.bindLong(1, line.day);
+                insertLine.bindLong(2, line.productId);
+                insertLine.bindString(3, line.name);
+                insertLine.bindLong(4, line.quantity);
+                insertLine.bindLong(5, line.revenue);
+                insertLine.executeInsert();
+            }
+        } finally {
+            insertLine.close();
+        }
+    }
+
+    private static class ProductDayTotals {
+        final long day;
+        final long productId;
+        String name;
+        long quantity;
+        long revenue;
+
+        ProductDayTotals(long day, long productId) {
+            this.day = day;
+            this.productId = productId;
+        }
+    }
+
+    // Local calendar day number used as the key of the daily rollups
+    static long dayOf(long timestampMillis) {
+        return (timestampMillis + TimeZone.getDefault().getOffset(timestampMillis)) / DAY_MILLIS;
+    }
+
+    private void createProductIndexes(SQLiteDatabase db) {
+        createProductNameIndex(db);
+        // Range queries (price between, low stock) seek these instead of scanning;
+        // id is appended so results come back in a stable order for paging
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_price ON " + TABLE_PRODUCTS
+                + " (" + KEY_PRODUCT_PRICE + ", " + KEY_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_units ON " + TABLE_PRODUCTS
+                + " (" + KEY_PRODUCT_UNITS + ", " + KEY_ID + ")");
+    }
+
+    // Case-insensitive unique index on product names. Duplicate checks compare with
+    // COLLATE NOCASE so they are answered by this index instead of scanning LOWER(name).
+    private void createProductNameIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_product_name_nocase ON " + TABLE_PRODUCTS
+                + " (" + KEY_PRODUCT_NAME + " COLLATE NOCASE)");
+    }
+
+    // One product per barcode. Partial, so the many products without a barcode take no space
+    // in it, and a scan is a single seek however large the catalog is.
+    private void createProductBarcodeIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_product_barcode ON " + TABLE_PRODUCTS
+                + " (" + KEY_PRODUCT_BARCODE + ") WHERE " + KEY_PRODUCT_BARCODE + " IS NOT NULL");
+    }
+
+    // Full-text index over product names. It is an external-content FTS4 table, so the text
+    // lives only in products and the index is kept in sync by triggers. The update triggers fire
+    // only for name changes: stock, price and thumbnail writes leave the index alone.
+    // New searchable columns (description, category, ...) go in the column list, the triggers
+    // and their UPDATE OF lists.
+    private void createProductSearchIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_PRODUCTS_FTS
+                + " USING fts4(content=\"" + TABLE_PRODUCTS + "\", " + KEY_PRODUCT_NAME + ")");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_fts_bu BEFORE UPDATE OF " + KEY_PRODUCT_NAME + " ON " + TABLE_PRODUCTS + " BEGIN "
+                + "DELETE FROM " + TABLE_PRODUCTS_FTS + " WHERE docid = old." + KEY_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_fts_bd BEFORE DELETE ON " + TABLE_PRODUCTS + " BEGIN "
+                + "DELETE FROM " + TABLE_PRODUCTS_FTS + " WHERE docid = old." + KEY_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_fts_au AFTER UPDATE OF " + KEY_PRODUCT_NAME + " ON " + TABLE_PRODUCTS + " BEGIN "
+                + "INSERT INTO " + TABLE_PRODUCTS_FTS + "(docid, " + KEY_PRODUCT_NAME + ") "
+                + "VALUES (new." + KEY_ID + ", new." + KEY_PRODUCT_NAME + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS products_fts_ai AFTER INSERT ON " + TABLE_PRODUCTS + " BEGIN "
+                + "INSERT INTO " + TABLE_PRODUCTS_FTS + "(docid, " + KEY_PRODUCT_NAME + ") "
+                + "VALUES (new." + KEY_ID + ", new." + KEY_PRODUCT_NAME + "); END");
+    }
+
+    // ==================== USER MANAGEMENT METHODS ====================
+
+    @VisibleForTesting
+    void setPasswordHasher(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    // Hashes the password (slow by design) so call from a background thread.
+    // The unique email index rejects duplicates, so there is no separate existence check.
+    public boolean insertUser(String username, String email, String password) {
+        if (email == null || username == null || password == null) {
             return false;
         }
 
-        Cursor cursor = null;
         try {
             SQLiteDatabase db = openDatabase();
-            cursor = db.query(TABLE_USERS,
-                    new String[]{KEY_ID},
-                    KEY_EMAIL + " = ?",
-                    new String[]{email},
-                    null, null, null);
 
-            return cursor.getCount() > 0;
+            byte[] salt = passwordHasher.newSalt();
+            ContentValues values = new ContentValues();
+            values.put(KEY_USERNAME, username);
+            values.put(KEY_EMAIL, email);
+            values.put(KEY_PASSWORD, "");
+            values.put(KEY_PASSWORD_SALT, salt);
+            values.put(KEY_PASSWORD_HASH, passwordHasher.hash(password, salt));
+            values.put(KEY_PASSWORD_ITERATIONS, passwordHasher.getIterations());
+
+            db.insertOrThrow(TABLE_USERS, null, values);
+            return true;
+        } catch (SQLiteConstraintException e) {
+            // Email already registered
+            return false;
         } catch (SQLException e) {
-            Log.e(TAG, "Error checking user existence: " + e.getMessage());
+            Log.e(TAG, "Error inserting user: " + e.getMessage());
             return false;
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
         }
     }
 
+    // Looks the user up by the indexed email, then compares hashes in constant time.
+    // Unknown emails still pay for one hash so response time doesn't reveal which emails exist.
     public boolean checkUser(String email, String password) {
         if (email == null || password == null) {
             return false;
@@ -191,15 +718,31 @@ public class DBHelper extends SQLiteOpenHelper {
         try {
             SQLiteDatabase db = openDatabase();
             cursor = db.query(TABLE_USERS,
-                    new String[]{KEY_ID},
-                    KEY_EMAIL + " = ? AND " + KEY_PASSWORD + " = ?",
-                    new String[]{email, password},
+                    new String[]{KEY_ID, KEY_PASSWORD, KEY_PASSWORD_SALT, KEY_PASSWORD_HASH, KEY_PASSWORD_ITERATIONS},
+                    KEY_EMAIL + " = ?",
+                    new String[]{email},
                     null, null, null);
 
-            boolean isValid = cursor.getCount() > 0;
-            if (!isValid) {
-                showToast("Invalid credentials");
+            boolean isValid;
+            if (!cursor.moveToFirst()) {
+                passwordHasher.hash(password, new byte[PasswordHasher.SALT_BYTES]);
+                isValid = false;
+            } else {
+                int userId = cursor.getInt(0);
+                int iterations = cursor.getInt(4);
+                if (iterations == 0) {
+                    // Account created before passwords were hashed
+                    isValid = MessageDigest.isEqual(
+                            cursor.getString(1).getBytes(StandardCharsets.UTF_8),
+                            password.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    isValid = PasswordHasher.verify(password, cursor.getBlob(2), iterations, cursor.getBlob(3));
+                }
+                if (isValid && passwordHasher.needsRehash(iterations)) {
+                    rehashPassword(db, userId, password);
+                }
             }
+
             return isValid;
         } catch (SQLException e) {
             Log.e(TAG, "Error checking user credentials: " + e.getMessage());
@@ -211,6 +754,17 @@ public class DBHelper extends SQLiteOpenHelper {
         }
     }
 
+    // Replaces a plaintext or weaker hash after the user proved they know the password
+    private void rehashPassword(SQLiteDatabase db, int userId, String password) {
+        byte[] salt = passwordHasher.newSalt();
+        ContentValues values = new ContentValues();
+        values.put(KEY_PASSWORD, "");
+        values.put(KEY_PASSWORD_SALT, salt);
+        values.put(KEY_PASSWORD_HASH, passwordHasher.hash(password, salt));
+        values.put(KEY_PASSWORD_ITERATIONS, passwordHasher.getIterations());
+        db.update(TABLE_USERS, values, KEY_ID + " = ?", new String[]{String.valueOf(userId)});
+    }
+
     public String getUsername(String email) {
         if (email == null) {
             return null;
@@ -241,76 +795,579 @@ public class DBHelper extends SQLiteOpenHelper {
 
     // ==================== PRODUCT MANAGEMENT METHODS ====================
 
+    public ProductCache getProductCache() {
+        return productCache;
+    }
+
+    public DbMetrics getMetrics() {
+        return dbMetrics;
+    }
+
+    public ProductEvents getProductEvents() {
+        return productEvents;
+    }
+
+    // Single row by primary key, served from the cache when possible
+    public ProductModel getProductById(int productId) {
+        ProductModel cached = productCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        long cacheVersion = productCache.getVersion();
+        ProductModel product = readProduct(productId);
+        if (product != null) {
+            productCache.put(product, cacheVersion);
+        }
+        return product;
+    }
+
+    private ProductModel readProduct(int productId) {
+        ArrayList<ProductModel> rows = queryProducts(KEY_ID + " = ?",
+                new String[]{String.valueOf(productId)}, null, 1);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
     public boolean checkIfProductExists(String productName) {
         if (productName == null) {
             return false;
         }
 
-        Cursor cursor = null;
-        try {
-            SQLiteDatabase db = openDatabase();
-            String lowerProductName = productName.toLowerCase();
-            cursor = db.query(TABLE_PRODUCTS,
-                    new String[]{KEY_ID},
-                    "LOWER(" + KEY_PRODUCT_NAME + ") = ?",
-                    new String[]{lowerProductName},
-                    null, null, null);
+        Boolean cached = productCache.containsName(productName);
+        if (cached != null) {
+            return cached;
+        }
 
-            return cursor.getCount() > 0;
+        try {
+            boolean exists = queryProductNameExists(productName);
+            productCache.putNameLookup(productName, exists);
+            return exists;
         } catch (SQLException e) {
             Log.e(TAG, "Error checking product existence: " + e.getMessage());
             return false;
+        }
+    }
+
+    // The compiled statement is reused across calls and rebuilt after the connection closes
+    private synchronized boolean queryProductNameExists(String productName) {
+        if (productNameExistsStatement == null) {
+            productNameExistsStatement = openDatabase().compileStatement(SQL_PRODUCT_NAME_EXISTS);
+        }
+        productNameExistsStatement.bindString(1, productName);
+        try {
+            return productNameExistsStatement.simpleQueryForLong() > 0;
         } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            productNameExistsStatement.clearBindings();
+        }
+    }
+
+    // The product with this barcode, or null. Called for every scan at the counter, so it is a
+    // compiled statement on the barcode index followed by a cache hit for the row in most cases.
+    public ProductModel getProductByBarcode(String barcode) {
+        if (barcode == null || barcode.isEmpty()) {
+            return null;
+        }
+        try {
+            long productId = queryProductIdByBarcode(barcode);
+            return productId > 0 ? getProductById((int) productId) : null;
+        } catch (SQLException e) {
+            Log.e(TAG, "Error looking up barcode: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Same reuse rules as queryProductNameExists(); 0 when no product has the barcode
+    private synchronized long queryProductIdByBarcode(String barcode) {
+        if (productIdByBarcodeStatement == null) {
+            productIdByBarcodeStatement = openDatabase().compileStatement(SQL_PRODUCT_ID_BY_BARCODE);
         }
+        productIdByBarcodeStatement.bindString(1, barcode);
+        try {
+            return productIdByBarcodeStatement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return 0;
+        } finally {
+            productIdByBarcodeStatement.clearBindings();
+        }
+    }
+
+    public boolean insertProduct(String name, int units, long price, String imageUri, String thumbnailPath) {
+        return insertProduct(name, units, price, imageUri, thumbnailPath, null, null, null);
     }
 
-    public boolean insertProduct(String name, String units, String price, String imageUri) {
+    // category and tags are created on first use; null or empty leaves the product without them.
+    // Fails if another product already has the barcode.
+    public boolean insertProduct(String name, int units, long price, String imageUri, String thumbnailPath,
+                                 String barcode, String category, List<String> tags) {
         SQLiteDatabase db = openDatabase();
         ContentValues values = new ContentValues();
         values.put(KEY_PRODUCT_NAME, name);
         values.put(KEY_PRODUCT_UNITS, units);
         values.put(KEY_PRODUCT_PRICE, price);
         values.put(KEY_PRODUCT_IMAGE_URI, imageUri);  // Using URI constant
+        values.put(KEY_PRODUCT_THUMBNAIL, thumbnailPath);
+        values.put(KEY_PRODUCT_BARCODE, barcode);
 
-        long result = db.insert(TABLE_PRODUCTS, null, values);
-        close();
+        long result;
+        db.beginTransactionNonExclusive();
+        try {
+            if (category != null) {
+                values.put(KEY_CATEGORY_ID, findOrCreateFacet(db, TABLE_CATEGORIES, category));
+            }
+            result = db.insert(TABLE_PRODUCTS, null, values);
+            if (result != -1) {
+                replaceTags(db, result, tags);
+                db.setTransactionSuccessful();
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error inserting product: " + e.getMessage());
+            result = -1;
+        } finally {
+            db.endTransaction();
+        }
+        if (result != -1) {
+            ProductModel product = new ProductModel((int) result, name, units, price, imageUri, thumbnailPath, barcode);
+            productCache.invalidatePages();
+            productCache.put(product);
+            productEvents.publishInserted(product);
+        }
         return result != -1;
     }
 
-    public boolean updateProduct(int productId, String name, String units, String price, String imageUri) {
+    // A null imageUri keeps the stored image and thumbnail; a new image replaces both.
+    // The product's barcode, category and tags are left as they are.
+    public boolean updateProduct(int productId, String name, int units, long price, String imageUri,
+                                 String thumbnailPath) {
+        return updateProduct(productId, name, units, price, imageUri, thumbnailPath, false, null, null, null);
+    }
+
+    // As above, and also replaces the barcode, category and tags; null clears them
+    public boolean updateProduct(int productId, String name, int units, long price, String imageUri,
+                                 String thumbnailPath, String barcode, String category, List<String> tags) {
+        return updateProduct(productId, name, units, price, imageUri, thumbnailPath, true, barcode, category, tags);
+    }
+
+    private boolean updateProduct(int productId, String name, int units, long price, String imageUri,
+                                  String thumbnailPath, boolean withDetails, String barcode, String category,
+                                  List<String> tags) {
         SQLiteDatabase db = openDatabase();
         ContentValues values = new ContentValues();
         values.put(KEY_PRODUCT_NAME, name);
         values.put(KEY_PRODUCT_UNITS, units);
         values.put(KEY_PRODUCT_PRICE, price);
+        String oldThumbnail = null;
         if (imageUri != null) {
             values.put(KEY_PRODUCT_IMAGE_URI, imageUri);  // Using URI constant
+            values.put(KEY_PRODUCT_THUMBNAIL, thumbnailPath);
+            oldThumbnail = getThumbnailPath(productId);
         }
 
-        int rows = db.update(TABLE_PRODUCTS, values, KEY_ID + "=?",
-                new String[]{String.valueOf(productId)});
-        close();
+        int rows = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            if (withDetails) {
+                values.put(KEY_PRODUCT_BARCODE, barcode);
+                if (category != null) {
+                    values.put(KEY_CATEGORY_ID, findOrCreateFacet(db, TABLE_CATEGORIES, category));
+                } else {
+                    values.putNull(KEY_CATEGORY_ID);
+                }
+            }
+            rows = db.update(TABLE_PRODUCTS, values, KEY_ID + "=?",
+                    new String[]{String.valueOf(productId)});
+            if (rows > 0 && withDetails) {
+                replaceTags(db, productId, tags);
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, "Error updating product: " + e.getMessage());
+            rows = 0;
+        } finally {
+            db.endTransaction();
+        }
+        if (rows > 0) {
+            if (oldThumbnail != null && !oldThumbnail.equals(thumbnailPath)) {
+                ThumbnailGenerator.deleteThumbnail(oldThumbnail);
+            }
+            productCache.invalidatePages();
+            productCache.remove(productId);
+            publishUpdated(productId);
+        }
         return rows > 0;
     }
 
+    // Id of the category or tag with this name (case-insensitive), inserting it if it is new
+    private static long findOrCreateFacet(SQLiteDatabase db, String table, String name) {
+        db.execSQL("INSERT OR IGNORE INTO " + table + " (" + KEY_FACET_NAME + ") VALUES (?)", new Object[]{name});
+        return DatabaseUtils.longForQuery(db, "SELECT " + KEY_ID + " FROM " + table
+                + " WHERE " + KEY_FACET_NAME + " = ?", new String[]{name});
+    }
+
+    // Rewrites the product's tag links; the product_tags triggers move the tag counts
+    private static void replaceTags(SQLiteDatabase db, long productId, List<String> tags) {
+        db.delete(TABLE_PRODUCT_TAGS, KEY_PRODUCT_ID + " = ?", new String[]{String.valueOf(productId)});
+        if (tags == null) {
+            return;
+        }
+        for (String tag : tags) {
+            // OR IGNORE: "Organic" and "organic" are the same tag
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_PRODUCT_TAGS + " (" + KEY_TAG_ID + ", " + KEY_PRODUCT_ID
+                    + ") VALUES (?, ?)", new Object[]{findOrCreateFacet(db, TABLE_TAGS, tag), productId});
+        }
+    }
+
+    // Reads the row back by primary key so the cache and listeners get every column,
+    // including ones the write left untouched
+    private void publishUpdated(int productId) {
+        ProductModel product = readProduct(productId);
+        if (product != null) {
+            productCache.put(product);
+            productEvents.publishUpdated(product);
+        }
+    }
+
+    private String getThumbnailPath(int productId) {
+        Cursor cursor = null;
+        try {
+            cursor = openDatabase().query(TABLE_PRODUCTS,
+                    new String[]{KEY_PRODUCT_THUMBNAIL},
+                    KEY_ID + " = ?",
+                    new String[]{String.valueOf(productId)},
+                    null, null, null);
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    // Called once a thumbnail has been generated for a product that didn't have one
+    public void setThumbnailPath(int productId, String thumbnailPath) {
+        ContentValues values = new ContentValues();
+        values.put(KEY_PRODUCT_THUMBNAIL, thumbnailPath);
+        int rows = openDatabase().update(TABLE_PRODUCTS, values,
+                KEY_ID + " = ? AND " + KEY_PRODUCT_THUMBNAIL + " IS NULL",
+                new String[]{String.valueOf(productId)});
+        if (rows > 0) {
+            productCache.invalidatePages();
+            productCache.remove(productId);
+            publishUpdated(productId);
+        } else {
+            // Row was deleted or got a thumbnail meanwhile
+            ThumbnailGenerator.deleteThumbnail(thumbnailPath);
+        }
+    }
+
+    // Generates thumbnails for products that have an image but none yet: rows saved before v5,
+    // and imported or edited products whose new image cleared the old one. Each one written is
+    // published as an update, so an open grid swaps in the thumbnail.
+    public void backfillThumbnails() {
+        long afterId = 0;
+        ArrayList<ProductModel> batch;
+        do {
+            batch = getProductsMissingThumbnails(afterId, THUMBNAIL_BACKFILL_BATCH);
+            for (ProductModel product : batch) {
+                afterId = product.getId();
+                String path = ThumbnailGenerator.createThumbnail(context, Uri.parse(product.getImageUri()));
+                if (path != null) {
+                    setThumbnailPath(product.getId(), path);
+                }
+            }
+        } while (batch.size() == THUMBNAIL_BACKFILL_BATCH);
+    }
+
+    // Products that have a picked image but no thumbnail yet, in id order after afterId
+    public ArrayList<ProductModel> getProductsMissingThumbnails(long afterId, int limit) {
+        return queryProducts(KEY_ID + " > ? AND " + KEY_PRODUCT_THUMBNAIL + " IS NULL AND "
+                        + KEY_PRODUCT_IMAGE_URI + " IS NOT NULL",
+                new String[]{String.valueOf(afterId)},
+                KEY_ID, limit);
+    }
+
     public Cursor getAllProducts() {
         SQLiteDatabase db = openDatabase();
-        return db.query(TABLE_PRODUCTS,
-                new String[]{KEY_ID, KEY_PRODUCT_NAME,
-                        KEY_PRODUCT_UNITS, KEY_PRODUCT_PRICE,
-                        KEY_PRODUCT_IMAGE_URI},  // Using URI constant
-                null, null, null, null, null);
+        return db.query(TABLE_PRODUCTS, ProductRowMapper.PROJECTION, null, null, null, null, null);
+    }
+
+    // Memory-only variant of getProductPage() that never touches the database, so it is
+    // safe on the main thread; returns null unless the page is already cached
+    public ArrayList<ProductModel> peekProductPage(long anchorId, boolean forward, int limit) {
+        return productCache.getPage(anchorId, forward, limit);
+    }
+
+    // Keyset paging: seek on the primary key instead of OFFSET so every page
+    // is an index range scan of at most `limit` rows, however deep the user scrolls.
+    // forward = true returns rows with id > anchorId in ascending order,
+    // forward = false returns rows with id < anchorId, still in ascending order.
+    public ArrayList<ProductModel> getProductPage(long anchorId, boolean forward, int limit) {
+        ArrayList<ProductModel> cachedPage = productCache.getPage(anchorId, forward, limit);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        // Taken before the query so a write that lands while we read stops us caching a stale page
+        long cacheVersion = productCache.getVersion();
+        ArrayList<ProductModel> page = new ArrayList<>(limit);
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = openDatabase();
+            cursor = db.query(TABLE_PRODUCTS, ProductRowMapper.PROJECTION,
+                    KEY_ID + (forward ? " > ?" : " < ?"),
+                    new String[]{String.valueOf(anchorId)},
+                    null, null,
+                    KEY_ID + (forward ? " ASC" : " DESC"),
+                    String.valueOf(limit));
+
+            new ProductRowMapper(cursor, productCache).mapAll(cursor, page);
+            if (!forward) {
+                Collections.reverse(page);
+            }
+            productCache.putPage(anchorId, forward, limit, page, cacheVersion);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error loading product page: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return page;
+    }
+
+    // getProductPage() narrowed by a filter, same keyset semantics. A category filter seeks
+    // idx_product_category and a tag-only filter walks that tag's product_tags rows, both already
+    // in id order, so a page costs a short index scan rather than a scan of the catalog. Price
+    // and stock are written with a unary + so SQLite checks them against the covering index
+    // entries instead of picking idx_product_price/idx_product_units and sorting every match.
+    // Filtered pages are not cached; they are cheap to read and change with every filter tap.
+    public ArrayList<ProductModel> getFilteredProductPage(ProductFilter filter, long anchorId,
+                                                          boolean forward, int limit) {
+        if (filter.isEmpty()) {
+            return getProductPage(anchorId, forward, limit);
+        }
+
+        String from;
+        String idColumn;
+        ArrayList<String> where = new ArrayList<>();
+        if (filter.tagId != 0 && filter.categoryId == 0) {
+            // CROSS JOIN keeps product_tags as the outer loop
+            from = TABLE_PRODUCT_TAGS + " t CROSS JOIN " + TABLE_PRODUCTS + " p ON p." + KEY_ID + " = t." + KEY_PRODUCT_ID;
+            idColumn = "t." + KEY_PRODUCT_ID;
+            where.add("t." + KEY_TAG_ID + " = " + filter.tagId);
+        } else {
+            from = TABLE_PRODUCTS + " p";
+            idColumn = "p." + KEY_ID;
+            if (filter.categoryId != 0) {
+                where.add("p." + KEY_CATEGORY_ID + " = " + filter.categoryId);
+            }
+            if (filter.tagId != 0) {
+                where.add("EXISTS (SELECT 1 FROM " + TABLE_PRODUCT_TAGS + " WHERE " + KEY_TAG_ID + " = "
+                        + filter.tagId + " AND " + KEY_PRODUCT_ID + " = p." + KEY_ID + ")");
+            }
+        }
+        where.add(idColumn + (forward ? " > " : " < ") + anchorId);
+        if (filter.hasPriceRange()) {
+            where.add("+p." + KEY_PRODUCT_PRICE + " BETWEEN " + filter.minPrice + " AND " + filter.maxPrice);
+        }
+        if (filter.inStockOnly) {
+            where.add("+p." + KEY_PRODUCT_UNITS + " > 0");
+        }
+        String sql = "SELECT " + ProductRowMapper.selectList("p") + " FROM " + from
+                + " WHERE " + TextUtils.join(" AND ", where)
+                + " ORDER BY " + idColumn + (forward ? " ASC" : " DESC") + " LIMIT " + limit;
+
+        ArrayList<ProductModel> page = new ArrayList<>(limit);
+        Cursor cursor = null;
+        try {
+            // Every value is a number from ProductFilter, so it is inlined rather than bound:
+            // a bound string would not compare equal to the affinity-less +price/+units
+            cursor = openDatabase().rawQuery(sql, null);
+            new ProductRowMapper(cursor, productCache).mapAll(cursor, page);
+            if (!forward) {
+                Collections.reverse(page);
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error loading filtered product page: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return page;
+    }
+
+    // Every category, by name, and the tagLimit most used tags, with the counts the facet
+    // triggers keep; a handful of small rows however large the catalog is
+    public CatalogFacets getCatalogFacets(int tagLimit) {
+        ArrayList<CatalogFacets.Facet> categories = new ArrayList<>();
+        ArrayList<CatalogFacets.Facet> tags = new ArrayList<>();
+        String columns = KEY_ID + ", " + KEY_FACET_NAME + ", " + KEY_PRODUCT_COUNT + ", " + KEY_IN_STOCK_COUNT;
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = openDatabase();
+            cursor = db.rawQuery("SELECT " + columns + " FROM " + TABLE_CATEGORIES
+                    + " WHERE " + KEY_PRODUCT_COUNT + " > 0 ORDER BY " + KEY_FACET_NAME, null);
+            while (cursor.moveToNext()) {
+                categories.add(new CatalogFacets.Facet(cursor.getLong(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getInt(3)));
+            }
+            cursor.close();
+
+            cursor = db.rawQuery("SELECT " + columns + " FROM " + TABLE_TAGS
+                    + " WHERE " + KEY_PRODUCT_COUNT + " > 0 ORDER BY " + KEY_PRODUCT_COUNT + " DESC, "
+                    + KEY_FACET_NAME + " LIMIT " + tagLimit, null);
+            while (cursor.moveToNext()) {
+                tags.add(new CatalogFacets.Facet(cursor.getLong(0), cursor.getString(1),
+                        cursor.getInt(2), cursor.getInt(3)));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading facets: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return new CatalogFacets(categories, tags);
+    }
+
+    // The product's category name, or null when it has none
+    public String getProductCategory(int productId) {
+        try {
+            return DatabaseUtils.stringForQuery(openDatabase(), "SELECT c." + KEY_FACET_NAME + " FROM "
+                    + TABLE_PRODUCTS + " p JOIN " + TABLE_CATEGORIES + " c ON c." + KEY_ID + " = p." + KEY_CATEGORY_ID
+                    + " WHERE p." + KEY_ID + " = ?", new String[]{String.valueOf(productId)});
+        } catch (SQLiteDoneException e) {
+            return null;
+        }
+    }
+
+    public ArrayList<String> getProductTags(int productId) {
+        ArrayList<String> tags = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            cursor = openDatabase().rawQuery("SELECT t." + KEY_FACET_NAME + " FROM " + TABLE_PRODUCT_TAGS
+                    + " pt JOIN " + TABLE_TAGS + " t ON t." + KEY_ID + " = pt." + KEY_TAG_ID
+                    + " WHERE pt." + KEY_PRODUCT_ID + " = ? ORDER BY t." + KEY_FACET_NAME,
+                    new String[]{String.valueOf(productId)});
+            while (cursor.moveToNext()) {
+                tags.add(cursor.getString(0));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading product tags: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return tags;
+    }
+
+    // Full-text search over product names. Every word of the query is matched as a prefix,
+    // and names that start with the whole query are ranked ahead of other matches.
+    public ArrayList<ProductModel> searchProducts(String query, int limit) {
+        ArrayList<ProductModel> results = new ArrayList<>();
+        String match = buildMatchExpression(query);
+        if (match.isEmpty()) {
+            return results;
+        }
+
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = openDatabase();
+            String likePrefix = query.trim().replace("\\", "\\\\")
+                    .replace("%", "\\%").replace("_", "\\_") + "%";
+            cursor = db.rawQuery("SELECT " + ProductRowMapper.selectList("p")
+                            + " FROM " + TABLE_PRODUCTS_FTS + " f"
+                            + " JOIN " + TABLE_PRODUCTS + " p ON p." + KEY_ID + " = f.docid"
+                            + " WHERE " + TABLE_PRODUCTS_FTS + " MATCH ?"
+                            + " ORDER BY (p." + KEY_PRODUCT_NAME + " LIKE ? ESCAPE '\\') DESC,"
+                            + " p." + KEY_PRODUCT_NAME + " COLLATE NOCASE"
+                            + " LIMIT " + limit,
+                    new String[]{match, likePrefix});
+
+            new ProductRowMapper(cursor, productCache).mapAll(cursor, results);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error searching products: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return results;
+    }
+
+    // Products priced between minPrice and maxPrice (minor units, inclusive), cheapest first.
+    // Answered from idx_product_price. Start with afterPrice = minPrice, afterId = 0, then pass
+    // the last row's price and id to get the next page.
+    public ArrayList<ProductModel> getProductsByPriceRange(long minPrice, long maxPrice,
+                                                           long afterPrice, long afterId, int limit) {
+        // Row values ("(price, id) > (?, ?)") need SQLite 3.15, newer than some supported devices.
+        // The OR can't bound the index range, so the BETWEEN starts at the cursor instead of
+        // minPrice; otherwise each page would re-scan every cheaper row in the range.
+        long lowerPrice = Math.max(minPrice, afterPrice);
+        return queryProducts(KEY_PRODUCT_PRICE + " BETWEEN ? AND ? AND (" + KEY_PRODUCT_PRICE + " > ? OR ("
+                        + KEY_PRODUCT_PRICE + " = ? AND " + KEY_ID + " > ?))",
+                new String[]{String.valueOf(lowerPrice), String.valueOf(maxPrice),
+                        String.valueOf(afterPrice), String.valueOf(afterPrice), String.valueOf(afterId)},
+                KEY_PRODUCT_PRICE + ", " + KEY_ID, limit);
+    }
+
+    // Products with fewer than threshold units left, emptiest first, from idx_product_units
+    public ArrayList<ProductModel> getLowStockProducts(int threshold, int limit) {
+        return queryProducts(KEY_PRODUCT_UNITS + " < ?",
+                new String[]{String.valueOf(threshold)},
+                KEY_PRODUCT_UNITS + ", " + KEY_ID, limit);
+    }
+
+    private ArrayList<ProductModel> queryProducts(String selection, String[] args, String orderBy, int limit) {
+        ArrayList<ProductModel> results = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = openDatabase();
+            cursor = db.query(TABLE_PRODUCTS, ProductRowMapper.PROJECTION,
+                    selection, args, null, null, orderBy, String.valueOf(limit));
+            new ProductRowMapper(cursor, productCache).mapAll(cursor, results);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error querying products: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return results;
+    }
+
+    // Turns free text into an FTS query: "red app" -> "red* app*".
+    // Anything that is not a letter or digit is dropped so user input can't inject FTS syntax.
+    private static String buildMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        if (query == null) {
+            return "";
+        }
+        for (String token : query.trim().split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.toString();
     }
 
     public void deleteProductById(int id) {
         try {
             SQLiteDatabase db = openDatabase();
+            String thumbnail = getThumbnailPath(id);
             int deletedRows = db.delete(TABLE_PRODUCTS,
                     KEY_ID + " = ?",
                     new String[]{String.valueOf(id)});
+            if (deletedRows > 0) {
+                productCache.invalidatePages();
+                productCache.remove(id);
+                ThumbnailGenerator.deleteThumbnail(thumbnail);
+                productEvents.publishDeleted(id);
+            }
         } catch (SQLException e) {
             Log.e(TAG, "Error deleting product: " + e.getMessage());
         }
@@ -318,7 +1375,449 @@ public class DBHelper extends SQLiteOpenHelper {
 
 
 
-    private void showToast(String message) {
-        Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
+    // ==================== CART & SALES ====================
+
+    // Adds quantity to the product's cart line, creating it if needed
+    public boolean addToCart(int productId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        SQLiteDatabase db = openDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            // No UPSERT before API 30: bump an existing line, otherwise insert one
+            SQLiteStatement bump = db.compileStatement("UPDATE " + TABLE_CART + " SET " + KEY_QUANTITY
+                    + " = " + KEY_QUANTITY + " + ? WHERE " + KEY_PRODUCT_ID + " = ?");
+            bump.bindLong(1, quantity);
+            bump.bindLong(2, productId);
+            boolean updated = bump.executeUpdateDelete() > 0;
+            bump.close();
+            if (!updated) {
+                // Only products that still exist can be added
+                SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_CART + " ("
+                        + KEY_PRODUCT_ID + ", " + KEY_QUANTITY + ") SELECT " + KEY_ID + ", ? FROM "
+                        + TABLE_PRODUCTS + " WHERE " + KEY_ID + " = ?");
+                insert.bindLong(1, quantity);
+                insert.bindLong(2, productId);
+                updated = insert.executeInsert() != -1;
+                insert.close();
+            }
+            db.setTransactionSuccessful();
+            return updated;
+        } catch (SQLException e) {
+            Log.e(TAG, "Error adding to cart: " + e.getMessage());
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Scanner path: one more of the scanned product in the cart. Returns the product, or null
+    // when no product has that barcode.
+    public ProductModel addToCartByBarcode(String barcode) {
+        ProductModel product = getProductByBarcode(barcode);
+        if (product == null || !addToCart(product.getId(), 1)) {
+            return null;
+        }
+        return product;
+    }
+
+    // Sets the line's quantity; zero or less removes the line
+    public void setCartQuantity(int productId, int quantity) {
+        SQLiteDatabase db = openDatabase();
+        if (quantity <= 0) {
+            db.delete(TABLE_CART, KEY_PRODUCT_ID + " = ?", new String[]{String.valueOf(productId)});
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put(KEY_QUANTITY, quantity);
+        db.update(TABLE_CART, values, KEY_PRODUCT_ID + " = ?", new String[]{String.valueOf(productId)});
+    }
+
+    public ArrayList<CartItem> getCartItems() {
+        ArrayList<CartItem> items = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            cursor = openDatabase().rawQuery("SELECT c." + KEY_PRODUCT_ID + ", p." + KEY_PRODUCT_NAME
+                    + ", p." + KEY_PRODUCT_PRICE + ", c." + KEY_QUANTITY + ", p." + KEY_PRODUCT_UNITS
+                    + " FROM " + TABLE_CART + " c JOIN " + TABLE_PRODUCTS + " p ON p." + KEY_ID + " = c." + KEY_PRODUCT_ID
+                    + " ORDER BY p." + KEY_PRODUCT_NAME + " COLLATE NOCASE", null);
+            while (cursor.moveToNext()) {
+                items.add(new CartItem(cursor.getInt(0), cursor.getString(1), cursor.getLong(2),
+                        cursor.getInt(3), cursor.getInt(4)));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading cart: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return items;
+    }
+
+    // Turns the cart into a sale in one short write transaction: every line decrements stock
+    // only if enough units are left (units >= quantity, checked by the UPDATE itself, so two
+    // checkouts can never oversell), then the sale and its items are recorded and the cart
+    // emptied. Any shortfall rolls the whole sale back. With WAL the grid's readers never
+    // wait on this; only other writers queue behind it for the few milliseconds it takes.
+    public CheckoutResult checkout() {
+        SQLiteDatabase db = openDatabase();
+        ArrayList<CartItem> items = new ArrayList<>();
+        long total = 0;
+        int itemCount = 0;
+        long saleId;
+
+        db.beginTransactionNonExclusive();
+        SQLiteStatement decrement = null;
+        SQLiteStatement insertItem = null;
+        try {
+            // Read inside the transaction so prices and quantities can't change underneath us
+            Cursor cursor = db.rawQuery("SELECT c." + KEY_PRODUCT_ID + ", p." + KEY_PRODUCT_NAME
+                    + ", p." + KEY_PRODUCT_PRICE + ", c." + KEY_QUANTITY + ", p." + KEY_PRODUCT_UNITS
+                    + " FROM " + TABLE_CART + " c JOIN " + TABLE_PRODUCTS + " p ON p." + KEY_ID + " = c." + KEY_PRODUCT_ID,
+                    null);
+            try {
+                while (cursor.moveToNext()) {
+                    CartItem item = new CartItem(cursor.getInt(0), cursor.getString(1), cursor.getLong(2),
+                            cursor.getInt(3), cursor.getInt(4));
+                    items.add(item);
+                    total += item.getLineTotal();
+                    itemCount += item.getQuantity();
+                }
+            } finally {
+                cursor.close();
+            }
+            if (items.isEmpty()) {
+                return CheckoutResult.failed("Cart is empty");
+            }
+
+            long now = System.currentTimeMillis();
+            ContentValues sale = new ContentValues();
+            sale.put(KEY_TIMESTAMP, now);
+            sale.put(KEY_SALE_TOTAL, total);
+            sale.put(KEY_SALE_ITEM_COUNT, itemCount);
+            saleId = db.insertOrThrow(TABLE_SALES, null, sale);
+
+            decrement = db.compileStatement("UPDATE " + TABLE_PRODUCTS + " SET " + KEY_PRODUCT_UNITS
+                    + " = " + KEY_PRODUCT_UNITS + " - ?1 WHERE " + KEY_ID + " = ?2 AND "
+                    + KEY_PRODUCT_UNITS + " >= ?1");
+            insertItem = db.compileStatement("INSERT INTO " + TABLE_SALE_ITEMS + " (" + KEY_SALE_ID + ", "
+                    + KEY_PRODUCT_ID + ", " + KEY_PRODUCT_NAME + ", " + KEY_QUANTITY + ", " + KEY_UNIT_PRICE
+                    + ") VALUES (?, ?, ?, ?, ?)");
+            for (CartItem item : items) {
+                decrement.bindLong(1, item.getQuantity());
+                decrement.bindLong(2, item.getProductId());
+                if (decrement.executeUpdateDelete() == 0) {
+                    return CheckoutResult.outOfStock(item.getName());
+                }
+                insertItem.bindLong(1, saleId);
+                insertItem.bindLong(2, item.getProductId());
+                insertItem.bindString(3, item.getName());
+                insertItem.bindLong(4, item.getQuantity());
+                insertItem.bindLong(5, item.getUnitPrice());
+                insertItem.executeInsert();
+            }
+            addToDailyRollups(db, dayOf(now), items, total, itemCount);
+            db.delete(TABLE_CART, null, null);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, "Error during checkout: " + e.getMessage());
+            return CheckoutResult.failed("Checkout failed");
+        } finally {
+            if (decrement != null) {
+                decrement.close();
+            }
+            if (insertItem != null) {
+                insertItem.close();
+            }
+            db.endTransaction();
+        }
+
+        // Stock changed for every line; refresh cached rows and tell open screens
+        productCache.invalidatePages();
+        for (CartItem item : items) {
+            productCache.remove(item.getProductId());
+            publishUpdated(item.getProductId());
+        }
+        return CheckoutResult.success(saleId, total, itemCount);
+    }
+
+    // Part of the checkout transaction, so the rollups can never disagree with the ledger
+    private void addToDailyRollups(SQLiteDatabase db, long day, ArrayList<CartItem> items, long total, int itemCount) {
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_DAILY_SALES + " (" + KEY_DAY + ") VALUES (?)", new Object[]{day});
+        db.execSQL("UPDATE " + TABLE_DAILY_SALES + " SET " + KEY_SALE_COUNT + " = " + KEY_SALE_COUNT + " + 1, "
+                + KEY_SALE_ITEM_COUNT + " = " + KEY_SALE_ITEM_COUNT + " + ?, "
+                + KEY_REVENUE + " = " + KEY_REVENUE + " + ? WHERE " + KEY_DAY + " = ?",
+                new Object[]{itemCount, total, day});
+
+        SQLiteStatement ensure = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_DAILY_PRODUCT_SALES + " ("
+                + KEY_DAY + ", " + KEY_PRODUCT_ID + ", " + KEY_PRODUCT_NAME + ") VALUES (?, ?, ?)");
+        SQLiteStatement add = db.compileStatement("UPDATE " + TABLE_DAILY_PRODUCT_SALES + " SET "
+                + KEY_PRODUCT_NAME + " = ?1, "
+                + KEY_QUANTITY + " = " + KEY_QUANTITY + " + ?2, "
+                + KEY_REVENUE + " = " + KEY_REVENUE + " + ?3"
+                + " WHERE " + KEY_DAY + " = ?4 AND " + KEY_PRODUCT_ID + " = ?5");
+        try {
+            for (CartItem item : items) {
+                ensure.bindLong(1, day);
+                ensure.bindLong(2, item.getProductId());
+                ensure.bindString(3, item.getName());
+                ensure.executeInsert();
+                add.bindString(1, item.getName());
+                add.bindLong(2, item.getQuantity());
+                add.bindLong(3, item.getLineTotal());
+                add.bindLong(4, day);
+                add.bindLong(5, item.getProductId());
+                add.executeUpdateDelete();
+            }
+        } finally {
+            ensure.close();
+            add.close();
+        }
+    }
+
+    // Reads only the rollup rows: one totals row, today, the last seven days and today's
+    // per-product rows, so the cost doesn't grow with the catalog or the sales history
+    public DashboardStats getDashboardStats() {
+        SQLiteDatabase db = openDatabase();
+        long today = dayOf(System.currentTimeMillis());
+        int productCount = 0;
+        long totalUnits = 0;
+        long stockValue = 0;
+        int lowStockCount = 0;
+        long revenueToday = 0;
+        int salesToday = 0;
+        long revenueWeek = 0;
+        ArrayList<DashboardStats.TopSeller> topSellers = new ArrayList<>();
+
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + KEY_PRODUCT_COUNT + ", " + KEY_TOTAL_UNITS + ", " + KEY_STOCK_VALUE
+                    + ", " + KEY_LOW_STOCK_COUNT + " FROM " + TABLE_INVENTORY_TOTALS + " WHERE " + KEY_ID + " = 1", null);
+            if (cursor.moveToFirst()) {
+                productCount = cursor.getInt(0);
+                totalUnits = cursor.getLong(1);
+                stockValue = cursor.getLong(2);
+                lowStockCount = cursor.getInt(3);
+            }
+            cursor.close();
+
+            cursor = db.rawQuery("SELECT " + KEY_DAY + ", " + KEY_SALE_COUNT + ", " + KEY_REVENUE + " FROM "
+                    + TABLE_DAILY_SALES + " WHERE " + KEY_DAY + " BETWEEN ? AND ?",
+                    new String[]{String.valueOf(today - 6), String.valueOf(today)});
+            while (cursor.moveToNext()) {
+                revenueWeek += cursor.getLong(2);
+                if (cursor.getLong(0) == today) {
+                    salesToday = cursor.getInt(1);
+                    revenueToday = cursor.getLong(2);
+                }
+            }
+            cursor.close();
+
+            cursor = db.rawQuery("SELECT " + KEY_PRODUCT_NAME + ", " + KEY_QUANTITY + ", " + KEY_REVENUE + " FROM "
+                    + TABLE_DAILY_PRODUCT_SALES + " WHERE " + KEY_DAY + " = ? ORDER BY " + KEY_REVENUE
+                    + " DESC LIMIT " + TOP_SELLERS, new String[]{String.valueOf(today)});
+            while (cursor.moveToNext()) {
+                topSellers.add(new DashboardStats.TopSeller(cursor.getString(0), cursor.getInt(1), cursor.getLong(2)));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading dashboard: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return new DashboardStats(productCount, totalUnits, stockValue, lowStockCount,
+                revenueToday, salesToday, revenueWeek, topSellers);
+    }
+
+    // Sales with fromMillis <= timestamp < toMillis, newest first, strictly before the
+    // (beforeTimestamp, beforeId) keyset position. Pass Long.MAX_VALUE for both to start.
+    public ArrayList<SaleRecord> getSalesPage(long fromMillis, long toMillis, long beforeTimestamp,
+                                              long beforeId, int limit) {
+        ArrayList<SaleRecord> page = new ArrayList<>(limit);
+        // The keyset test is an OR, which SQLite can't use as an index bound, so the range's
+        // upper end is pulled down to the cursor as well; without it every page would scan
+        // all newer rows again before reaching its own
+        long upperMillis = beforeTimestamp < toMillis ? beforeTimestamp + 1 : toMillis;
+        Cursor cursor = null;
+        try {
+            cursor = openDatabase().rawQuery("SELECT " + KEY_ID + ", " + KEY_TIMESTAMP + ", " + KEY_SALE_TOTAL
+                    + ", " + KEY_SALE_ITEM_COUNT + " FROM " + TABLE_SALES
+                    + " WHERE " + KEY_TIMESTAMP + " >= ? AND " + KEY_TIMESTAMP + " < ?"
+                    + " AND (" + KEY_TIMESTAMP + " < ? OR (" + KEY_TIMESTAMP + " = ? AND " + KEY_ID + " < ?))"
+                    + " ORDER BY " + KEY_TIMESTAMP + " DESC, " + KEY_ID + " DESC LIMIT " + limit,
+                    new String[]{String.valueOf(fromMillis), String.valueOf(upperMillis),
+                            String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp),
+                            String.valueOf(beforeId)});
+            while (cursor.moveToNext()) {
+                page.add(new SaleRecord(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2), cursor.getInt(3)));
+            }
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading sales: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return page;
+    }
+
+    // One row per sold line in the range, oldest first, for SalesExporter to stream out.
+    // Columns: sale id, timestamp, product name, quantity, unit price, sale total.
+    // The caller must close the cursor.
+    public Cursor querySaleLinesForExport(long fromMillis, long toMillis) {
+        return openDatabase().rawQuery("SELECT s." + KEY_ID + ", s." + KEY_TIMESTAMP + ", i." + KEY_PRODUCT_NAME
+                + ", i." + KEY_QUANTITY + ", i." + KEY_UNIT_PRICE + ", s." + KEY_SALE_TOTAL
+                + " FROM " + TABLE_SALES + " s JOIN " + TABLE_SALE_ITEMS + " i ON i." + KEY_SALE_ID + " = s." + KEY_ID
+                + " WHERE s." + KEY_TIMESTAMP + " >= ? AND s." + KEY_TIMESTAMP + " < ?"
+                + " ORDER BY s." + KEY_TIMESTAMP + ", s." + KEY_ID + ", i." + KEY_ID,
+                new String[]{String.valueOf(fromMillis), String.valueOf(toMillis)});
+    }
+
+    // ==================== BULK IMPORT ====================
+
+    // Streams many products into the table through reused prepared statements, committing
+    // every IMPORT_BATCH_SIZE rows. Duplicate names (case-insensitive) are skipped, or
+    // merged into the existing row when merge is true. Call finish() exactly once.
+    public ProductBulkWriter openProductBulkWriter(boolean merge) {
+        return new ProductBulkWriter(openDatabase(), merge);
+    }
+
+    public static final int IMPORT_BATCH_SIZE = 500;
+
+    public class ProductBulkWriter {
+        private final SQLiteDatabase db;
+        private final boolean merge;
+        // Platform SQLite before API 30 predates UPSERT, so "ON CONFLICT DO NOTHING" is
+        // spelled INSERT OR IGNORE and the merge is a follow-up update on the unique name.
+        // A barcode already used by a different product makes either one skip the row.
+        private final SQLiteStatement insert;
+        private final SQLiteStatement update;
+        // Category ids by lower-cased name, so a catalog of thousands of rows resolves each name once
+        private final HashMap<String, Long> categoryIds = new HashMap<>();
+        private int pendingInBatch = 0;
+
+        private int inserted = 0;
+        private int merged = 0;
+        private int skipped = 0;
+
+        ProductBulkWriter(SQLiteDatabase db, boolean merge) {
+            this.db = db;
+            this.merge = merge;
+            this.insert = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_PRODUCTS + " ("
+                    + KEY_PRODUCT_NAME + ", " + KEY_PRODUCT_UNITS + ", " + KEY_PRODUCT_PRICE + ", "
+                    + KEY_PRODUCT_IMAGE_URI + ", " + KEY_CATEGORY_ID + ", " + KEY_PRODUCT_BARCODE
+                    + ") VALUES (?, ?, ?, ?, ?, ?)");
+            // A new image clears the thumbnail so backfillThumbnails() regenerates it
+            this.update = merge ? db.compileStatement("UPDATE OR IGNORE " + TABLE_PRODUCTS + " SET "
+                    + KEY_PRODUCT_UNITS + " = ?1, " + KEY_PRODUCT_PRICE + " = ?2, "
+                    + KEY_PRODUCT_IMAGE_URI + " = COALESCE(?3, " + KEY_PRODUCT_IMAGE_URI + "), "
+                    + KEY_PRODUCT_THUMBNAIL + " = CASE WHEN ?3 IS NULL THEN " + KEY_PRODUCT_THUMBNAIL + " ELSE NULL END, "
+                    + KEY_CATEGORY_ID + " = COALESCE(?5, " + KEY_CATEGORY_ID + "), "
+                    + KEY_PRODUCT_BARCODE + " = COALESCE(?6, " + KEY_PRODUCT_BARCODE + ")"
+                    + " WHERE " + KEY_PRODUCT_NAME + " = ?4 COLLATE NOCASE") : null;
+            db.beginTransaction();
+        }
+
+        // Returns true when a batch was committed, so callers can report progress
+        public boolean add(String name, int units, long price, String imageUri) {
+            return add(name, units, price, imageUri, null, null);
+        }
+
+        // A null category or barcode leaves a merged product's value as it was
+        public boolean add(String name, int units, long price, String imageUri, String category, String barcode) {
+            Long categoryId = category != null ? categoryId(category) : null;
+            bindNullable(insert, 1, name);
+            insert.bindLong(2, units);
+            insert.bindLong(3, price);
+            bindNullable(insert, 4, imageUri);
+            bindNullable(insert, 5, categoryId);
+            bindNullable(insert, 6, barcode);
+            if (insert.executeInsert() != -1) {
+                inserted++;
+            } else if (merge) {
+                update.bindLong(1, units);
+                update.bindLong(2, price);
+                bindNullable(update, 3, imageUri);
+                bindNullable(update, 4, name);
+                bindNullable(update, 5, categoryId);
+                bindNullable(update, 6, barcode);
+                if (update.executeUpdateDelete() > 0) {
+                    merged++;
+                } else {
+                    skipped++;
+                }
+            } else {
+                skipped++;
+            }
+
+            if (++pendingInBatch >= IMPORT_BATCH_SIZE) {
+                db.setTransactionSuccessful();
+                db.endTransaction();
+                db.beginTransaction();
+                pendingInBatch = 0;
+                return true;
+            }
+            return false;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getMerged() {
+            return merged;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        // Commits the last partial batch when successful is true, otherwise rolls it back
+        public void finish(boolean successful) {
+            try {
+                if (successful) {
+                    db.setTransactionSuccessful();
+                }
+                db.endTransaction();
+            } finally {
+                insert.close();
+                if (update != null) {
+                    update.close();
+                }
+                productCache.clear();
+                if (inserted + merged > 0) {
+                    productEvents.publishChanged();
+                }
+            }
+        }
+
+        private Long categoryId(String category) {
+            String key = category.toLowerCase(Locale.ROOT);
+            Long id = categoryIds.get(key);
+            if (id == null) {
+                id = findOrCreateFacet(db, TABLE_CATEGORIES, category);
+                categoryIds.put(key, id);
+            }
+            return id;
+        }
+
+        private void bindNullable(SQLiteStatement statement, int index, String value) {
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindString(index, value);
+            }
+        }
+
+        private void bindNullable(SQLiteStatement statement, int index, Long value) {
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindLong(index, value);
+            }
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.devmats.easyshop;
+
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+public class DashboardActivity extends AppCompatActivity {
+
+    private SalesRepository salesRepository;
+    private TextView txtStockValue, txtProductCount, txtTotalUnits, txtLowStock;
+    private TextView txtRevenueToday, txtSalesToday, txtRevenueWeek, txtTopSellers;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_dashboard);
+
+        salesRepository = SalesRepository.getInstance(this);
+        txtStockValue = findViewById(R.id.txt_stock_value);
+        txtProductCount = findViewById(R.id.txt_product_count);
+        txtTotalUnits = findViewById(R.id.txt_total_units);
+        txtLowStock = findViewById(R.id.txt_low_stock);
+        txtRevenueToday = findViewById(R.id.txt_revenue_today);
+        txtSalesToday = findViewById(R.id.txt_sales_today);
+        txtRevenueWeek = findViewById(R.id.txt_revenue_week);
+        txtTopSellers = findViewById(R.id.txt_top_sellers);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Reads a handful of rollup rows, so it is cheap to refresh every time we come back
+        salesRepository.getDashboardStats(this::showStats);
+    }
+
+    private void showStats(DashboardStats stats) {
+        // The read failed; keep whatever is on screen
+        if (stats == null) {
+            return;
+        }
+        txtStockValue.setText("৳ " + Prices.format(stats.stockValue));
+        txtProductCount.setText(String.valueOf(stats.productCount));
+        txtTotalUnits.setText(String.valueOf(stats.totalUnits));
+        txtLowStock.setText(String.valueOf(stats.lowStockCount));
+        txtRevenueToday.setText("৳ " + Prices.format(stats.revenueToday));
+        txtSalesToday.setText(String.valueOf(stats.salesToday));
+        txtRevenueWeek.setText("৳ " + Prices.format(stats.revenueLast7Days));
+
+        if (stats.topSellersToday.isEmpty()) {
+            txtTopSellers.setText("No sales yet today");
+            return;
+        }
+        StringBuilder top = new StringBuilder();
+        for (DashboardStats.TopSeller seller : stats.topSellersToday) {
+            if (top.length() > 0) {
+                top.append('\n');
+            }
+            top.append(seller.name).append(" — ").append(seller.quantity).append(" sold, ৳ ")
+                    .append(Prices.format(seller.revenue));
+        }
+        txtTopSellers.setText(top);
+    }
+}
@@ -0,0 +1,41 @@
+package com.devmats.easyshop;
+
+import java.util.ArrayList;
+
+// Snapshot of the dashboard figures, read from the rollup tables in constant time
+public class DashboardStats {
+
+    public static class TopSeller {
+        public final String name;
+        public final int quantity;
+        public final long revenue;
+
+        public TopSeller(String name, int quantity, long revenue) {
+            this.name = name;
+            this.quantity = quantity;
+            this.revenue = revenue;
+        }
+    }
+
+    public final int productCount;
+    public final long totalUnits;
+    public final long stockValue;       // minor currency units
+    public final int lowStockCount;     // products below DBHelper.LOW_STOCK_THRESHOLD units
+    public final long revenueToday;
+    public final int salesToday;
+    public final long revenueLast7Days;
+    public final ArrayList<TopSeller> topSellersToday;
+
+    public DashboardStats(int productCount, long totalUnits, long stockValue, int lowStockCount,
+                          long revenueToday, int salesToday, long revenueLast7Days,
+                          ArrayList<TopSeller> topSellersToday) {
+        this.productCount = productCount;
+        this.totalUnits = totalUnits;
+        this.stockValue = stockValue;
+        this.lowStockCount = lowStockCount;
+        this.revenueToday = revenueToday;
+        this.salesToday = salesToday;
+        this.revenueLast7Days = revenueLast7Days;
+        this.topSellersToday = topSellersToday;
+    }
+}
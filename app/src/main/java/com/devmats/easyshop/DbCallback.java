@@ -0,0 +1,6 @@
+package com.devmats.easyshop;
+
+// Result of a background database operation, always delivered on the main thread
+public interface DbCallback<T> {
+    void onResult(T result);
+}
@@ -0,0 +1,178 @@
+package com.devmats.easyshop;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.text.DateFormat;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+// Latency, row counts and main-thread access for database operations.
+// The repositories run every DBHelper call through timed(), which also emits a systrace
+// section per call; DBHelper reports main-thread access itself from openDatabase().
+// Everything is in memory and bounded, so it is cheap enough to leave on in release builds.
+public class DbMetrics {
+
+    private static final String TAG = "DbMetrics";
+    public static final long SLOW_QUERY_THRESHOLD_MS = 50;
+    private static final int MAX_SLOW_QUERIES = 100;
+
+    public static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long rows;
+        long mainThreadCalls;
+    }
+
+    public static class SlowQuery {
+        final String operation;
+        final long durationMillis;
+        final long rows;
+        final String thread;
+        final long timestamp;
+
+        SlowQuery(String operation, long durationMillis, long rows, String thread, long timestamp) {
+            this.operation = operation;
+            this.durationMillis = durationMillis;
+            this.rows = rows;
+            this.thread = thread;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final TreeMap<String, OperationStats> operations = new TreeMap<>();
+    private final ArrayDeque<SlowQuery> slowQueries = new ArrayDeque<>();
+    // Step name -> milliseconds for the schema upgrade this process ran, in execution order.
+    // reset() keeps it: an upgrade only happens once, on the first open after an app update.
+    private final LinkedHashMap<String, Long> migrationTimings = new LinkedHashMap<>();
+
+    // Wraps task so that running it records its latency under operation
+    public <T> Callable<T> timed(String operation, Callable<T> task) {
+        return () -> time(operation, task);
+    }
+
+    public <T> T time(String operation, Callable<T> task) throws Exception {
+        Trace.beginSection("db:" + operation);
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            result = task.call();
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Trace.endSection();
+            record(operation, elapsed, rowsOf(result));
+        }
+    }
+
+    public synchronized void record(String operation, long elapsedNanos, long rows) {
+        OperationStats stats = statsFor(operation);
+        stats.latency.record(elapsedNanos);
+        if (rows > 0) {
+            stats.rows += rows;
+        }
+
+        long millis = elapsedNanos / 1_000_000;
+        if (millis >= SLOW_QUERY_THRESHOLD_MS) {
+            if (slowQueries.size() == MAX_SLOW_QUERIES) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(new SlowQuery(operation, millis, rows,
+                    Thread.currentThread().getName(), System.currentTimeMillis()));
+            Log.w(TAG, "Slow database call: " + operation + " took " + millis + " ms"
+                    + (rows >= 0 ? " (" + rows + " rows)" : ""));
+        }
+    }
+
+    public synchronized void recordMainThreadAccess(String operation) {
+        statsFor(operation).mainThreadCalls++;
+        Log.w(TAG, "Database accessed on the main thread by " + operation);
+    }
+
+    public synchronized void recordMigrations(Map<String, Long> timings) {
+        migrationTimings.clear();
+        migrationTimings.putAll(timings);
+    }
+
+    public synchronized Map<String, Long> getMigrationTimings() {
+        return new LinkedHashMap<>(migrationTimings);
+    }
+
+    public synchronized void reset() {
+        operations.clear();
+        slowQueries.clear();
+    }
+
+    public synchronized void appendReport(StringBuilder out) {
+        out.append("Database operations (latency in ms)\n");
+        out.append(String.format(Locale.US, "%-24s %7s %7s %7s %7s %7s %9s %6s\n",
+                "operation", "calls", "p50", "p95", "p99", "max", "rows", "main"));
+        for (Map.Entry<String, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            LatencyHistogram latency = stats.latency;
+            out.append(String.format(Locale.US, "%-24s %7d %7s %7s %7s %7s %9d %6d\n",
+                    entry.getKey(), latency.getCount(),
+                    millis(latency.getPercentileMicros(50)),
+                    millis(latency.getPercentileMicros(95)),
+                    millis(latency.getPercentileMicros(99)),
+                    millis(latency.getMaxMicros()),
+                    stats.rows, stats.mainThreadCalls));
+        }
+
+        out.append("\nSchema upgrade on this launch\n");
+        if (migrationTimings.isEmpty()) {
+            out.append("none\n");
+        }
+        for (Map.Entry<String, Long> step : migrationTimings.entrySet()) {
+            out.append(step.getKey()).append(' ').append(step.getValue()).append(" ms\n");
+        }
+
+        out.append("\nSlow calls (>= ").append(SLOW_QUERY_THRESHOLD_MS).append(" ms), newest first\n");
+        if (slowQueries.isEmpty()) {
+            out.append("none\n");
+        }
+        DateFormat format = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+        Iterator<SlowQuery> newestFirst = slowQueries.descendingIterator();
+        while (newestFirst.hasNext()) {
+            SlowQuery query = newestFirst.next();
+            out.append(format.format(query.timestamp)).append("  ")
+                    .append(query.operation).append(' ')
+                    .append(query.durationMillis).append(" ms");
+            if (query.rows >= 0) {
+                out.append(", ").append(query.rows).append(" rows");
+            }
+            out.append(" [").append(query.thread).append("]\n");
+        }
+    }
+
+    synchronized OperationStats getStats(String operation) {
+        return operations.get(operation);
+    }
+
+    synchronized int getSlowQueryCount() {
+        return slowQueries.size();
+    }
+
+    private OperationStats statsFor(String operation) {
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            stats = new OperationStats();
+            operations.put(operation, stats);
+        }
+        return stats;
+    }
+
+    // Row count for list results; -1 when the result isn't a set of rows
+    private static long rowsOf(Object result) {
+        return result instanceof Collection ? ((Collection<?>) result).size() : -1;
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.US, "%.1f", micros / 1000.0);
+    }
+}
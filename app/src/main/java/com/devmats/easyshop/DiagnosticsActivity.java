@@ -0,0 +1,74 @@
+package com.devmats.easyshop;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+// Shows where time is going: database latency percentiles, slow calls, main-thread access
+// and janky frames since the process started, with an export for support requests.
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final int EXPORT_DIAGNOSTICS_REQUEST = 105;
+
+    private TextView txtReport;
+    private Button btnExport;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        txtReport = findViewById(R.id.txt_diagnostics_report);
+        btnExport = findViewById(R.id.btn_export_diagnostics);
+        Button btnRefresh = findViewById(R.id.btn_refresh_diagnostics);
+        Button btnReset = findViewById(R.id.btn_reset_diagnostics);
+
+        btnRefresh.setOnClickListener(v -> refresh());
+        btnReset.setOnClickListener(v -> {
+            DBHelper.getInstance(this).getMetrics().reset();
+            JankTracker.getInstance().reset();
+            refresh();
+        });
+        btnExport.setOnClickListener(v -> {
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/plain");
+            intent.putExtra(Intent.EXTRA_TITLE, "easyshop-diagnostics.txt");
+            startActivityForResult(intent, EXPORT_DIAGNOSTICS_REQUEST);
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        txtReport.setText(DiagnosticsReport.build(this));
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == EXPORT_DIAGNOSTICS_REQUEST && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            Uri uri = data.getData();
+            String report = DiagnosticsReport.build(this);
+            btnExport.setEnabled(false);
+            AppExecutors.runInBackground(() -> DiagnosticsReport.export(getApplicationContext(), uri, report), error -> {
+                btnExport.setEnabled(true);
+                if (error != null) {
+                    Toast.makeText(this, "Export failed: " + error, Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(this, "Diagnostics exported", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+
+// Plain-text snapshot of the database metrics, frame metrics and product cache, shown on
+// the diagnostics screen and exported as a file a store can attach to a slowness report.
+public final class DiagnosticsReport {
+    private static final String TAG = "DiagnosticsReport";
+
+    private DiagnosticsReport() {
+    }
+
+    // Only reads in-memory counters, so it is safe on the main thread
+    public static String build(Context context) {
+        DBHelper db = DBHelper.getInstance(context);
+        StringBuilder out = new StringBuilder();
+        out.append("EasyShop ").append(BuildConfig.VERSION_NAME)
+                .append(" (").append(BuildConfig.BUILD_TYPE).append(")\n");
+        out.append(Build.MANUFACTURER).append(' ').append(Build.MODEL)
+                .append(", Android ").append(Build.VERSION.RELEASE)
+                .append(" (API ").append(Build.VERSION.SDK_INT).append(")\n");
+        out.append("Generated ")
+                .append(DateFormat.getDateTimeInstance().format(System.currentTimeMillis())).append("\n\n");
+
+        ProductCache cache = db.getProductCache();
+        out.append("Product cache: ").append(cache.size()).append('/').append(cache.getMaxEntries())
+                .append(" entries, ").append(cache.getHitCount()).append(" hits, ")
+                .append(cache.getMissCount()).append(" misses\n\n");
+
+        db.getMetrics().appendReport(out);
+        out.append('\n');
+        JankTracker.getInstance().appendReport(out);
+        return out.toString();
+    }
+
+    // Runs on the calling thread; returns an error message, or null on success
+    public static String export(Context context, Uri uri, String report) {
+        try (OutputStream out = context.getContentResolver().openOutputStream(uri, "wt")) {
+            if (out == null) {
+                throw new IOException("Cannot open " + uri);
+            }
+            out.write(report.getBytes(StandardCharsets.UTF_8));
+            return null;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Export failed", e);
+            return e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+    }
+}
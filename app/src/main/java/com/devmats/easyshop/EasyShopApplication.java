@@ -0,0 +1,39 @@
+package com.devmats.easyshop;
+
+import android.app.Application;
+import android.os.StrictMode;
+
+public class EasyShopApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Debug builds log main-thread disk access; the "strict" build crashes on it so
+        // regressions show up immediately while testing
+        if (BuildConfig.DEBUG) {
+            StrictMode.ThreadPolicy.Builder policy = new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog();
+            if (BuildConfig.STRICT_MODE) {
+                policy.penaltyDeath();
+            }
+            StrictMode.setThreadPolicy(policy.build());
+        }
+
+        AppExecutors.diskIO().execute(this::initializeDatabase);
+    }
+
+    // The database connection lives as long as the process. Creating and opening it (and
+    // running any migrations) happens here, off the main thread, so the first screen never
+    // waits on it. The first page of the home grid is read into the product cache while the
+    // launch activity is still starting, so the grid can usually show it in its first frame.
+    private void initializeDatabase() {
+        DBHelper dbHelper = DBHelper.getInstance(this);
+        dbHelper.openDatabase();
+        dbHelper.getProductPage(0, true, ProductPager.PAGE_SIZE);
+        // Products saved before thumbnails existed get one generated in the background
+        dbHelper.backfillThumbnails();
+    }
+}
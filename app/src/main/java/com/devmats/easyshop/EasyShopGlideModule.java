@@ -0,0 +1,54 @@
+package com.devmats.easyshop;
+
+import android.app.ActivityManager;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+// Sizes Glide's caches for the device instead of using the library defaults.
+// The grid shows 256 px thumbnails, so a few screens of them fit comfortably in memory
+// on normal devices; low-RAM devices keep one screen and decode without alpha.
+@GlideModule
+public final class EasyShopGlideModule extends AppGlideModule {
+
+    private static final long LOW_RAM_DISK_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final long DISK_CACHE_BYTES = 128L * 1024 * 1024;
+    // Devices whose per-app heap is at or below this are treated like low-RAM devices
+    private static final int SMALL_HEAP_MB = 128;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean constrained = activityManager == null
+                || activityManager.isLowRamDevice()
+                || activityManager.getMemoryClass() <= SMALL_HEAP_MB;
+
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(constrained ? 1 : 3)
+                .setBitmapPoolScreens(constrained ? 1 : 3)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                constrained ? LOW_RAM_DISK_CACHE_BYTES : DISK_CACHE_BYTES));
+        if (constrained) {
+            builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        }
+    }
+
+    // Everything is configured here; skip the legacy manifest scan at startup
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -4,35 +4,47 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.*;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
+import androidx.metrics.performance.JankStats;
+import androidx.metrics.performance.PerformanceMetricsState;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import java.util.ArrayList;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 
 public class HomePageActivity extends AppCompatActivity {
 
-    public static final int ADD_PRODUCT_REQUEST = 101;
     private static final int STORAGE_PERMISSION_CODE = 102;
+    private static final int IMPORT_CATALOG_REQUEST = 103;
+    private static final int GRID_COLUMNS = 3;
+    private static final int PRELOAD_ROWS = 4;
 
-    ImageView btnNavigation;
+    ImageView btnNavigation, btnCart;
     EditText edtSearch;
     DrawerLayout drawerLayout;
-    Button btnSignOut, btnDashboard, btnInventory, btnSaleHistory, btnProfile, btnAddProduct;
+    Button btnSignOut, btnDashboard, btnInventory, btnSaleHistory, btnProfile, btnAddProduct, btnImportCatalog,
+            btnDiagnostics;
     RecyclerView recyclerView;
-    DBHelper db;
+    View gridSkeleton;
+    ProductRepository repository;
     ProductAdapter adapter;
-    ArrayList<ProductModel> productList;
+    ProductPager pager;
+    ProductSearchController searchController;
+    ProductFilterBar filterBar;
+    JankStats jankStats;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,6 +56,7 @@ public class HomePageActivity extends AppCompatActivity {
         // Initialize views
         edtSearch = findViewById(R.id.edt_search);
         btnNavigation = findViewById(R.id.nav_icon);
+        btnCart = findViewById(R.id.trolley_icon);
         drawerLayout = findViewById(R.id.drawer_layout);
         btnSignOut = findViewById(R.id.btn_signout);
         btnDashboard = findViewById(R.id.btn_dashboard);
@@ -51,23 +64,91 @@ public class HomePageActivity extends AppCompatActivity {
         btnSaleHistory = findViewById(R.id.btn_sales_histroy);
         btnProfile = findViewById(R.id.btn_profile);
         btnAddProduct = findViewById(R.id.btn_add_product);
+        btnImportCatalog = findViewById(R.id.btn_import_catalog);
+        btnDiagnostics = findViewById(R.id.btn_diagnostics);
         recyclerView = findViewById(R.id.recycler_view_products);
+        gridSkeleton = findViewById(R.id.grid_skeleton);
 
-        // In your activity's onCreate or where you need database access
-        DBHelper dbHelper = DBHelper.getInstance(this);
-        db = dbHelper;
-        productList = new ArrayList<>();
-        adapter = new ProductAdapter(this, productList, db);
-        recyclerView.setLayoutManager(new GridLayoutManager(this, 3));
+        repository = ProductRepository.getInstance(this);
+        pager = new ProductPager(repository);
+        adapter = new ProductAdapter(this, pager, repository);
+        GridLayoutManager layoutManager = new GridLayoutManager(this, GRID_COLUMNS);
+        recyclerView.setLayoutManager(layoutManager);
+        // The grid fills the space below the search bar; its size never depends on the items
+        recyclerView.setHasFixedSize(true);
+        // The two rows that just scrolled off stay bound, so reversing a short scroll shows them
+        // without a rebind; the pool keeps ten rows of views so flings rebind instead of inflating
+        recyclerView.setItemViewCacheSize(GRID_COLUMNS * 2);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, GRID_COLUMNS * 10);
         recyclerView.setAdapter(adapter);
 
+        // Placeholder tiles cover the grid until the first page is on screen; that is also
+        // the moment the launch counts as fully drawn for startup metrics
+        adapter.setFirstWindowListener(() -> {
+            gridSkeleton.setVisibility(View.GONE);
+            reportFullyDrawn();
+        });
+
+        // Start loading images a few rows before they scroll into view
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), adapter,
+                new FixedPreloadSizeProvider<>(ThumbnailGenerator.THUMBNAIL_SIZE_PX, ThumbnailGenerator.THUMBNAIL_SIZE_PX),
+                GRID_COLUMNS * PRELOAD_ROWS));
+
+        // Frame timing for the diagnostics screen; janky frames are tagged with the grid's scroll state
+        jankStats = JankTracker.getInstance().track(this, "Home");
+        PerformanceMetricsState.Holder metricsState = PerformanceMetricsState.getHolderForHierarchy(recyclerView);
+
+        // Load further pages as the user approaches either end of the loaded window
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                PerformanceMetricsState state = metricsState.getState();
+                if (state == null) {
+                    return;
+                }
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    state.removeState("ProductGrid");
+                } else {
+                    state.putState("ProductGrid",
+                            newState == RecyclerView.SCROLL_STATE_DRAGGING ? "Dragging" : "Settling");
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (pager.isLoading() || adapter.isShowingSearchResults()) {
+                    return;
+                }
+                if (dy > 0 && pager.hasMoreAfter()
+                        && layoutManager.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - ProductPager.PREFETCH_DISTANCE) {
+                    pager.loadNext();
+                } else if (dy < 0 && pager.hasMoreBefore()
+                        && layoutManager.findFirstVisibleItemPosition() <= ProductPager.PREFETCH_DISTANCE) {
+                    pager.loadPrevious();
+                }
+            }
+        });
+
+        // Search as you type, backed by the products_fts index
+        searchController = new ProductSearchController(repository, adapter);
+        edtSearch.addTextChangedListener(searchController);
+
+        // Category, tag and stock chips; narrowing the grid re-pages it from the database
+        filterBar = new ProductFilterBar(findViewById(R.id.chip_group_filters), repository, pager);
+        filterBar.refresh();
+
+        // Writes from any screen arrive here; only the affected row is patched and rebound
+        repository.addProductListener(productListener);
 
         // Drawer actions
         btnNavigation.setOnClickListener(v -> drawerLayout.openDrawer(GravityCompat.START));
-        btnDashboard.setOnClickListener(v -> Toast.makeText(this, "Dashboard clicked", Toast.LENGTH_SHORT).show());
+        btnCart.setOnClickListener(v -> startActivity(new Intent(this, CartActivity.class)));
+        btnDashboard.setOnClickListener(v -> startActivity(new Intent(this, DashboardActivity.class)));
         btnInventory.setOnClickListener(v -> Toast.makeText(this, "Inventory clicked", Toast.LENGTH_SHORT).show());
-        btnSaleHistory.setOnClickListener(v -> Toast.makeText(this, "Sales History clicked", Toast.LENGTH_SHORT).show());
+        btnSaleHistory.setOnClickListener(v -> startActivity(new Intent(this, SalesHistoryActivity.class)));
         btnProfile.setOnClickListener(v -> Toast.makeText(this, "Profile clicked", Toast.LENGTH_SHORT).show());
+        btnDiagnostics.setOnClickListener(v -> startActivity(new Intent(this, DiagnosticsActivity.class)));
 
         // Sign out action
         btnSignOut.setOnClickListener(v -> {
@@ -78,36 +159,31 @@ public class HomePageActivity extends AppCompatActivity {
 
         // Add product action
         btnAddProduct.setOnClickListener(v -> {
-            startActivityForResult(new Intent(this, AddProductActivity.class), ADD_PRODUCT_REQUEST);
+            startActivity(new Intent(this, AddProductActivity.class));
         });
 
-        // Permission check and loading products
-        if (hasStoragePermission()) {
-            loadProducts();
-        } else {
+        // Bulk import of a CSV/JSON catalog
+        btnImportCatalog.setOnClickListener(v -> {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("*/*");
+            intent.putExtra(Intent.EXTRA_MIME_TYPES,
+                    new String[]{"text/csv", "text/comma-separated-values", "application/json", "text/plain"});
+            startActivityForResult(intent, IMPORT_CATALOG_REQUEST);
+        });
+
+        // Products don't depend on the storage permission, only their images do, so the
+        // grid loads straight away while the permission is requested
+        loadProducts();
+        if (!hasStoragePermission()) {
             requestStoragePermission();
         }
     }
 
     // In HomePageActivity: Call loadProducts to refresh the product list from the database
-    // Method to load products from the database
+    // Method to load products from the database, one page at a time
     public void loadProducts() {
-        productList.clear(); // Clear the existing list
-        Cursor cursor = db.getAllProducts(); // Get all products from the database
-        try {
-            while (cursor.moveToNext()) {
-                int id = cursor.getInt(0);
-                String name = cursor.getString(1);
-                String units = cursor.getString(2);
-                String price = cursor.getString(3);
-                String imageUri = cursor.getString(4);
-
-                productList.add(new ProductModel(id, name, units, price, imageUri)); // Add the updated product to the list
-            }
-        } finally {
-            cursor.close(); // Make sure to close the cursor
-        }
-        adapter.notifyDataSetChanged(); // Notify the adapter that the list has been updated
+        pager.refresh();
     }
 
 
@@ -136,70 +212,96 @@ public class HomePageActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == STORAGE_PERMISSION_CODE) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                loadProducts();
+                // Rebind so images that failed without the permission are loaded now
+                adapter.notifyItemRangeChanged(0, adapter.getItemCount());
             } else {
                 Toast.makeText(this, "Permission required to load product images", Toast.LENGTH_SHORT).show();
             }
         }
     }
 
-    // Helper method to find the index of a product by its ID
-    private int getProductIndexById(int productId) {
-        for (int i = 0; i < productList.size(); i++) {
-            if (productList.get(i).getId() == productId) {
-                return i; // Return the index of the updated product
-            }
-        }
-        return -1; // If not found, return -1
-    }
-
-
     @Override
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
-        if (requestCode == ADD_PRODUCT_REQUEST && resultCode == RESULT_OK) {
-            adapter.refreshData(); // Refresh the adapter after update
+        if (requestCode == IMPORT_CATALOG_REQUEST && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            Uri uri = data.getData();
+            new AlertDialog.Builder(this)
+                    .setTitle("Import Catalog")
+                    .setMessage("What should happen to products that already exist?")
+                    .setPositiveButton("Update them", (dialog, which) -> importCatalog(uri, true))
+                    .setNegativeButton("Skip them", (dialog, which) -> importCatalog(uri, false))
+                    .show();
         }
+    }
 
-        if (requestCode == ADD_PRODUCT_REQUEST && resultCode == RESULT_OK && data != null) {
-            String productName = data.getStringExtra("productName");
-            String units = data.getStringExtra("units");
-            String price = data.getStringExtra("price");
-            String imageUri = data.getStringExtra("imageUri");
-            int productId = data.getIntExtra("productId", -1);
-
-            if (productId != -1) {
-                // This is an update operation
-                boolean isUpdated = db.updateProduct(productId, productName, units, price, imageUri);
-
-                if (isUpdated) {
-                    // Immediately update the product in the local productList
-                    for (int i = 0; i < productList.size(); i++) {
-                        if (productList.get(i).getId() == productId) {
-                            productList.set(i, new ProductModel(
-                                    productId,
-                                    productName,
-                                    units,
-                                    price,
-                                    imageUri
-                            ));
-                            loadProducts();
-                            break;
-                        }
+    private void importCatalog(Uri uri, boolean mergeDuplicates) {
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Importing products")
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .show();
+        repository.importProducts(uri, mergeDuplicates,
+                rows -> progressDialog.setMessage(rows + " products processed"),
+                result -> {
+                    progressDialog.dismiss();
+                    String summary = result.inserted + " added, " + result.merged + " updated, "
+                            + result.skipped + " skipped";
+                    if (result.error != null) {
+                        summary = "Import stopped: " + result.error + "\n" + summary;
                     }
-                    // Notify the adapter to refresh the RecyclerView
-                    adapter.notifyItemChanged(getProductIndexById(productId));
-                    Toast.makeText(this, "Product updated successfully", Toast.LENGTH_SHORT).show();
-                } else {
-                    //Toast.makeText(this, "Failed to update product", Toast.LENGTH_SHORT).show();
-                }
-            } else {
-                // This is a new product addition
-                if (db.insertProduct(productName, units, price, imageUri)) {
-                    loadProducts(); // Refresh the list after adding the new product
-                }
-            }
+                    Toast.makeText(this, summary, Toast.LENGTH_LONG).show();
+                });
+    }
+
+    private final ProductEvents.Listener productListener = new ProductEvents.Listener() {
+        @Override
+        public void onProductInserted(ProductModel product) {
+            pager.onProductInserted(product);
+            // A new product may match the current query; the search itself decides
+            searchController.refresh();
+            filterBar.scheduleRefresh();
+        }
+
+        @Override
+        public void onProductUpdated(ProductModel product) {
+            pager.onProductUpdated(product);
+            adapter.onProductUpdated(product);
+            filterBar.scheduleRefresh();
         }
+
+        @Override
+        public void onProductDeleted(int productId) {
+            pager.onProductDeleted(productId);
+            adapter.onProductDeleted(productId);
+            filterBar.scheduleRefresh();
+        }
+
+        @Override
+        public void onProductsChanged() {
+            adapter.refreshData();
+            searchController.refresh();
+            filterBar.scheduleRefresh();
+        }
+    };
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        jankStats.setTrackingEnabled(true);
+    }
+
+    @Override
+    protected void onPause() {
+        jankStats.setTrackingEnabled(false);
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        repository.removeProductListener(productListener);
+        searchController.cancel();
+        filterBar.cancel();
+        super.onDestroy();
     }
 }
@@ -0,0 +1,126 @@
+package com.devmats.easyshop;
+
+import android.app.Activity;
+
+import androidx.metrics.performance.FrameData;
+import androidx.metrics.performance.JankStats;
+import androidx.metrics.performance.StateInfo;
+
+import java.text.DateFormat;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Frame timing per screen, collected with JankStats. Janky frames are kept with the UI
+// state that was active (e.g. "ProductGrid: Dragging"), so a report says what the user was
+// doing when the app stuttered, not just that it did.
+public class JankTracker {
+
+    private static final int MAX_JANK_SAMPLES = 50;
+
+    private static JankTracker instance;
+
+    private static class ScreenStats {
+        final LatencyHistogram frameTimes = new LatencyHistogram();
+        long jankyFrames;
+    }
+
+    private static class JankSample {
+        final String screen;
+        final long durationMillis;
+        final String states;
+        final long timestamp;
+
+        JankSample(String screen, long durationMillis, String states, long timestamp) {
+            this.screen = screen;
+            this.durationMillis = durationMillis;
+            this.states = states;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final TreeMap<String, ScreenStats> screens = new TreeMap<>();
+    private final ArrayDeque<JankSample> recentJank = new ArrayDeque<>();
+
+    private JankTracker() {
+    }
+
+    public static synchronized JankTracker getInstance() {
+        if (instance == null) {
+            instance = new JankTracker();
+        }
+        return instance;
+    }
+
+    // Starts tracking the activity's window; enable it in onResume and disable it in onPause
+    public JankStats track(Activity activity, String screen) {
+        return JankStats.createAndTrack(activity.getWindow(), frame -> record(screen, frame));
+    }
+
+    // JankStats reuses FrameData objects, so everything needed is copied out here
+    private synchronized void record(String screen, FrameData frame) {
+        ScreenStats stats = screens.get(screen);
+        if (stats == null) {
+            stats = new ScreenStats();
+            screens.put(screen, stats);
+        }
+        stats.frameTimes.record(frame.getFrameDurationUiNanos());
+        if (!frame.isJank()) {
+            return;
+        }
+        stats.jankyFrames++;
+
+        StringBuilder states = new StringBuilder();
+        for (StateInfo state : frame.getStates()) {
+            if (states.length() > 0) {
+                states.append(", ");
+            }
+            states.append(state.getKey()).append(": ").append(state.getValue());
+        }
+        if (recentJank.size() == MAX_JANK_SAMPLES) {
+            recentJank.removeFirst();
+        }
+        recentJank.addLast(new JankSample(screen, frame.getFrameDurationUiNanos() / 1_000_000,
+                states.toString(), System.currentTimeMillis()));
+    }
+
+    public synchronized void reset() {
+        screens.clear();
+        recentJank.clear();
+    }
+
+    public synchronized void appendReport(StringBuilder out) {
+        out.append("Frames (UI thread time in ms)\n");
+        out.append(String.format(Locale.US, "%-16s %8s %8s %7s %7s %7s %7s\n",
+                "screen", "frames", "janky", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, ScreenStats> entry : screens.entrySet()) {
+            ScreenStats stats = entry.getValue();
+            LatencyHistogram frameTimes = stats.frameTimes;
+            out.append(String.format(Locale.US, "%-16s %8d %8d %7.1f %7.1f %7.1f %7.1f\n",
+                    entry.getKey(), frameTimes.getCount(), stats.jankyFrames,
+                    frameTimes.getPercentileMicros(50) / 1000.0,
+                    frameTimes.getPercentileMicros(95) / 1000.0,
+                    frameTimes.getPercentileMicros(99) / 1000.0,
+                    frameTimes.getMaxMicros() / 1000.0));
+        }
+
+        out.append("\nRecent janky frames, newest first\n");
+        if (recentJank.isEmpty()) {
+            out.append("none\n");
+        }
+        DateFormat format = DateFormat.getTimeInstance(DateFormat.MEDIUM);
+        Iterator<JankSample> newestFirst = recentJank.descendingIterator();
+        while (newestFirst.hasNext()) {
+            JankSample sample = newestFirst.next();
+            out.append(format.format(sample.timestamp)).append("  ")
+                    .append(sample.screen).append(' ')
+                    .append(sample.durationMillis).append(" ms");
+            if (!sample.states.isEmpty()) {
+                out.append(" [").append(sample.states).append(']');
+            }
+            out.append('\n');
+        }
+    }
+}
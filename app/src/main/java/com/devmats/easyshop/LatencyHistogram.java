@@ -0,0 +1,98 @@
+package com.devmats.easyshop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Fixed-size latency histogram with geometrically growing buckets, so recording is a
+// constant-time array increment and memory stays the same however many samples arrive.
+// Percentiles are the upper bound of the bucket they fall in, i.e. at most ~20% high.
+public class LatencyHistogram {
+
+    private static final long SMALLEST_BUCKET_MICROS = 10;
+    private static final double BUCKET_GROWTH = 1.2;
+    private static final long LARGEST_BUCKET_MICROS = 60_000_000;   // one minute
+    // Upper bound of each bucket, in microseconds; anything above the last lands in an overflow bucket
+    private static final long[] BUCKET_BOUNDS = buildBounds();
+
+    private final long[] counts = new long[BUCKET_BOUNDS.length + 1];
+    private long count;
+    private long totalMicros;
+    private long maxMicros;
+
+    public synchronized void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts[bucketFor(micros)]++;
+        count++;
+        totalMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public synchronized long getMeanMicros() {
+        return count == 0 ? 0 : totalMicros / count;
+    }
+
+    // percentile in (0, 100]; 0 when nothing has been recorded
+    public synchronized long getPercentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                long bound = i < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i] : maxMicros;
+                return Math.min(bound, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalMicros = 0;
+        maxMicros = 0;
+    }
+
+    private static int bucketFor(long micros) {
+        int low = 0;
+        int high = BUCKET_BOUNDS.length;
+        // First bucket whose upper bound is >= micros
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_BOUNDS[mid] < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] buildBounds() {
+        ArrayList<Long> bounds = new ArrayList<>();
+        double bound = SMALLEST_BUCKET_MICROS;
+        while (bound < LARGEST_BUCKET_MICROS) {
+            long rounded = (long) Math.ceil(bound);
+            if (bounds.isEmpty() || bounds.get(bounds.size() - 1) < rounded) {
+                bounds.add(rounded);
+            }
+            bound *= BUCKET_GROWTH;
+        }
+        bounds.add(LARGEST_BUCKET_MICROS);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+}
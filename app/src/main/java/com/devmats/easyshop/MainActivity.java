@@ -3,6 +3,7 @@ package com.devmats.easyshop;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.StrictMode;
 import android.view.View;
 import android.widget.*;
 import androidx.appcompat.app.AppCompatActivity;
@@ -17,26 +18,35 @@ public class MainActivity extends AppCompatActivity {
     CheckBox chkKeepLoggedIn;
     Button btnLogin;
 
-    DBHelper dbHelper;
+    UserRepository userRepository;
     SharedPreferences prefs;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
 
-        // In your activity's onCreate or where you need database access
-        dbHelper = DBHelper.getInstance(this);
-        prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        // The session check runs first: a signed-in launch goes straight to the home screen
+        // without inflating the login form or touching the database. It reads one small
+        // prefs file; allow just that read so the strict build still fails on database access
+        StrictMode.ThreadPolicy oldPolicy = StrictMode.allowThreadDiskReads();
+        long lastLogin;
+        try {
+            prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+            lastLogin = prefs.getLong(KEY_LAST_LOGIN, 0);
+        } finally {
+            StrictMode.setThreadPolicy(oldPolicy);
+        }
 
         // If user logged in within last 24h, skip login
-        long lastLogin = prefs.getLong(KEY_LAST_LOGIN, 0);
         if (System.currentTimeMillis() - lastLogin < 24 * 60 * 60 * 1000L) {
             startActivity(new Intent(this, HomePageActivity.class));
             finish();
             return;
         }
 
+        setContentView(R.layout.activity_main);
+        userRepository = UserRepository.getInstance(this);
+
         // Bind views
         txtSignup = findViewById(R.id.txt_signup);
         edtUserEmail = findViewById(R.id.edt_user_email);
@@ -58,20 +68,23 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
 
-            boolean isValidUser = dbHelper.checkUser(userEmail, userPassword);
-            if (isValidUser) {
-                // If checkbox checked, save login time
-                if (chkKeepLoggedIn.isChecked()) {
-                    prefs.edit()
-                            .putLong(KEY_LAST_LOGIN, System.currentTimeMillis())
-                            .apply();
+            btnLogin.setEnabled(false);
+            userRepository.checkUser(userEmail, userPassword, isValidUser -> {
+                if (isValidUser) {
+                    // If checkbox checked, save login time
+                    if (chkKeepLoggedIn.isChecked()) {
+                        prefs.edit()
+                                .putLong(KEY_LAST_LOGIN, System.currentTimeMillis())
+                                .apply();
+                    }
+                    // Go to home
+                    startActivity(new Intent(MainActivity.this, HomePageActivity.class));
+                    finish();
+                } else {
+                    btnLogin.setEnabled(true);
+                    Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
                 }
-                // Go to home
-                startActivity(new Intent(MainActivity.this, HomePageActivity.class));
-                finish();
-            } else {
-                Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
-            }
+            });
         });
     }
 }
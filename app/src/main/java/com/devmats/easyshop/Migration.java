@@ -0,0 +1,24 @@
+package com.devmats.easyshop;
+
+import android.database.sqlite.SQLiteDatabase;
+
+// One schema step, from startVersion to startVersion + 1.
+// Steps must not open their own transactions: MigrationRunner runs the whole chain inside
+// the transaction SQLiteOpenHelper opens for onUpgrade, so a failure rolls back every step.
+public abstract class Migration {
+
+    public final int startVersion;
+    public final int endVersion;
+
+    protected Migration(int startVersion, int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    public abstract void migrate(SQLiteDatabase db);
+
+    @Override
+    public String toString() {
+        return "v" + startVersion + "->v" + endVersion;
+    }
+}
@@ -0,0 +1,54 @@
+package com.devmats.easyshop;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Applies an ordered chain of step migrations (v1->v2->v3...) and times each step.
+// Nothing here is destructive by default: a missing step is an error, not a reason to drop tables.
+public class MigrationRunner {
+    private static final String TAG = "MigrationRunner";
+
+    private final List<Migration> migrations;
+    private final LinkedHashMap<String, Long> lastRunTimings = new LinkedHashMap<>();
+
+    public MigrationRunner(List<Migration> migrations) {
+        ArrayList<Migration> sorted = new ArrayList<>(migrations);
+        Collections.sort(sorted, (a, b) -> Integer.compare(a.startVersion, b.startVersion));
+        this.migrations = sorted;
+    }
+
+    public void run(SQLiteDatabase db, int oldVersion, int newVersion) {
+        lastRunTimings.clear();
+        int version = oldVersion;
+        for (Migration migration : migrations) {
+            if (migration.startVersion < version) {
+                continue;
+            }
+            if (migration.startVersion != version || migration.endVersion > newVersion) {
+                break;
+            }
+            long start = SystemClock.elapsedRealtime();
+            migration.migrate(db);
+            long elapsed = SystemClock.elapsedRealtime() - start;
+            lastRunTimings.put(migration.toString(), elapsed);
+            Log.i(TAG, "Migration " + migration + " took " + elapsed + " ms");
+            version = migration.endVersion;
+        }
+        if (version != newVersion) {
+            // Throwing rolls back the upgrade transaction and leaves the old schema intact
+            throw new IllegalStateException("No migration path from v" + version + " to v" + newVersion);
+        }
+    }
+
+    // Step name -> milliseconds for the most recent run, in execution order
+    public Map<String, Long> getLastRunTimings() {
+        return Collections.unmodifiableMap(lastRunTimings);
+    }
+}
@@ -0,0 +1,92 @@
+package com.devmats.easyshop;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Salted PBKDF2 password hashing. The iteration count is stored with every hash, so it can
+// be raised later; users with an older count are rehashed the next time they log in.
+// Hashing is deliberately slow (~100 ms), so only call this off the main thread.
+public class PasswordHasher {
+
+    // HMAC-SHA256 for PBKDF2 only exists from API 26; SHA1 is available on every
+    // supported version and is still sound inside PBKDF2
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+    private static final int HASH_BITS = 160;   // one SHA1 block; longer output only slows us down
+    public static final int SALT_BYTES = 16;
+
+    // Aimed at ~100 ms per login on a mid-range phone. PasswordHasherBenchmark measures this
+    // count and the one calibrateIterations() picks for the device it runs on
+    public static final int DEFAULT_ITERATIONS = 60_000;
+    // calibrateIterations() never goes below this, however slow the device
+    static final int MIN_CALIBRATED_ITERATIONS = 1_000;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public byte[] newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    public byte[] hash(String password, byte[] salt) {
+        return hash(password, salt, iterations);
+    }
+
+    public static byte[] hash(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        }
+    }
+
+    // Compares in constant time so the response doesn't reveal how many bytes matched
+    public static boolean verify(String password, byte[] salt, int iterations, byte[] expectedHash) {
+        return MessageDigest.isEqual(hash(password, salt, iterations), expectedHash);
+    }
+
+    // Whether a hash made with storedIterations should be replaced on the next login
+    public boolean needsRehash(int storedIterations) {
+        return storedIterations < iterations;
+    }
+
+    // Doubles the iteration count until one hash takes at least targetMillis on this device
+    public static int calibrateIterations(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        int candidate = MIN_CALIBRATED_ITERATIONS;
+        hash("warm-up", salt, candidate);
+        while (true) {
+            long start = System.nanoTime();
+            hash("calibration", salt, candidate);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMillis >= targetMillis || candidate >= Integer.MAX_VALUE / 2) {
+                // Scale linearly to land close to the target rather than up to 2x above it
+                long scaled = elapsedMillis == 0 ? candidate : candidate * targetMillis / elapsedMillis;
+                return (int) Math.max(MIN_CALIBRATED_ITERATIONS, Math.min(Integer.MAX_VALUE, scaled));
+            }
+            candidate *= 2;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.devmats.easyshop;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Prices are stored as whole minor units (poisha) so SQLite can sort, sum and range-scan
+// them as integers. These helpers convert to and from what the user types and sees.
+public final class Prices {
+
+    private Prices() {
+    }
+
+    // "12.5" -> 1250. Throws NumberFormatException for anything that isn't a non-negative amount.
+    public static long parse(String amount) {
+        if (amount == null) {
+            throw new NumberFormatException("null price");
+        }
+        BigDecimal value = new BigDecimal(amount.trim());
+        if (value.signum() < 0) {
+            throw new NumberFormatException("negative price: " + amount);
+        }
+        try {
+            return value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("price out of range: " + amount);
+        }
+    }
+
+    // 1250 -> "12.50"
+    public static String format(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2).toPlainString();
+    }
+}
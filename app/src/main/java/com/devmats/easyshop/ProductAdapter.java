@@ -2,126 +2,270 @@ package com.devmats.easyshop;
 
 import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
-import android.net.Uri;
+import android.graphics.drawable.Drawable;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.*;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
+public class ProductAdapter extends ListAdapter<ProductModel, ProductAdapter.ProductViewHolder>
+        implements ProductPager.Callback, ListPreloader.PreloadModelProvider<ProductModel> {
+
+    // Rows are matched by database id; a row is only rebound when its content changed
+    private static final DiffUtil.ItemCallback<ProductModel> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<ProductModel>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ProductModel oldItem, @NonNull ProductModel newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ProductModel oldItem, @NonNull ProductModel newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
 
     private final Context context;
-    private ArrayList<ProductModel> productList;
-    private final DBHelper db;
+    private final ProductPager pager;
+    private final ProductRepository repository;
+    private final SalesRepository salesRepository;
+    // While a search is active the grid shows these results and ignores pager updates
+    private ArrayList<ProductModel> searchResults;
+    // Run once, after the first window from the pager has been laid out
+    private Runnable firstWindowListener;
 
-    public ProductAdapter(Context context, ArrayList<ProductModel> productList, DBHelper db) {
+    public ProductAdapter(Context context, ProductPager pager, ProductRepository repository) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.productList = productList;
-        this.db = db;
+        this.pager = pager;
+        this.repository = repository;
+        this.salesRepository = SalesRepository.getInstance(context);
+        setHasStableIds(true);
+        pager.setCallback(this);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
+    // Re-read the visible window; the diff runs on a background thread
     public void refreshData() {
-        this.productList = getAllProductsFromDB();
-        notifyDataSetChanged();
+        pager.reload();
     }
 
-    private ArrayList<ProductModel> getAllProductsFromDB() {
-        ArrayList<ProductModel> newList = new ArrayList<>();
-        Cursor cursor = db.getAllProducts();
-        try {
-            while (cursor.moveToNext()) {
-                int id = cursor.getInt(0);
-                String name = cursor.getString(1);
-                String units = cursor.getString(2);
-                String price = cursor.getString(3);
-                String imageUri = cursor.getString(4); // Changed back to URI
-                newList.add(new ProductModel(id, name, units, price, imageUri));
+    public void setFirstWindowListener(Runnable listener) {
+        firstWindowListener = listener;
+    }
+
+    @Override
+    public void onWindowChanged(ArrayList<ProductModel> snapshot) {
+        Runnable committed = firstWindowListener;
+        firstWindowListener = null;
+        if (searchResults == null) {
+            submitList(snapshot, committed);
+        } else if (committed != null) {
+            committed.run();
+        }
+    }
+
+    public void showSearchResults(ArrayList<ProductModel> results) {
+        searchResults = results;
+        submitList(results);
+    }
+
+    public void clearSearchResults() {
+        if (searchResults != null) {
+            searchResults = null;
+            submitList(new ArrayList<>(pager.getItems()));
+        }
+    }
+
+    public boolean isShowingSearchResults() {
+        return searchResults != null;
+    }
+
+    // Keeps visible search results in step with edits and deletes made anywhere
+    public void onProductUpdated(ProductModel product) {
+        if (searchResults == null) {
+            return;
+        }
+        for (int i = 0; i < searchResults.size(); i++) {
+            if (searchResults.get(i).getId() == product.getId()) {
+                searchResults = new ArrayList<>(searchResults);
+                searchResults.set(i, product);
+                submitList(searchResults);
+                return;
+            }
+        }
+    }
+
+    public void onProductDeleted(int productId) {
+        if (searchResults == null) {
+            return;
+        }
+        for (int i = 0; i < searchResults.size(); i++) {
+            if (searchResults.get(i).getId() == productId) {
+                searchResults = new ArrayList<>(searchResults);
+                searchResults.remove(i);
+                submitList(searchResults);
+                return;
             }
-        } finally {
-            cursor.close();
         }
-        return newList;
     }
 
     @NonNull
     @Override
     public ProductViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Trace.beginSection("ProductAdapter.create");
+        try {
+            return inflateViewHolder(parent);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private ProductViewHolder inflateViewHolder(ViewGroup parent) {
         View view = LayoutInflater.from(context).inflate(R.layout.product_row, parent, false);
-        return new ProductViewHolder(view);
+        ProductViewHolder holder = new ProductViewHolder(view);
+
+        // Listeners are attached once per view and look up the row they are bound to when
+        // clicked, so binding a recycled view allocates nothing
+        holder.addButton.setOnClickListener(v -> {
+            ProductModel product = productAt(holder);
+            if (product != null) {
+                onAddToCart(holder, product);
+            }
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            ProductModel product = productAt(holder);
+            if (product == null) {
+                return false;
+            }
+            showProductOptions(product);
+            return true;
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        ProductModel product = productList.get(position);
+        // Shows up in systrace/Perfetto next to RecyclerView's own "RV OnBindView" sections
+        Trace.beginSection("ProductAdapter.bind");
+        try {
+            bind(holder, getItem(position));
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void bind(ProductViewHolder holder, ProductModel product) {
 
         holder.name.setText(product.getName());
-        holder.price.setText("৳ " + product.getPrice());
-        holder.units.setText(product.getUnits() + " units");
-
-        // Load image using URI
-        if (product.getImageUri() != null && !product.getImageUri().isEmpty()) {
-            try {
-                Uri uri = Uri.parse(product.getImageUri());
-                // Take persistable permission
-                context.getContentResolver().takePersistableUriPermission(
-                        uri,
-                        Intent.FLAG_GRANT_READ_URI_PERMISSION
-                );
-                Glide.with(context)
-                        .load(uri)
-                        .into(holder.image);
-            } catch (Exception e) {
-                holder.image.setImageResource(R.drawable.noimage);
-                e.printStackTrace();
-            }
+        holder.price.setText(product.getPriceLabel());
+        holder.units.setText(product.getUnitsLabel());
+
+        RequestBuilder<Drawable> request = imageRequest(product);
+        if (request != null) {
+            request.placeholder(R.drawable.noimage)
+                    .error(R.drawable.noimage)
+                    .into(holder.image);
         } else {
+            Glide.with(context).clear(holder.image);
             holder.image.setImageResource(R.drawable.noimage);
         }
+    }
 
-        // Add to cart button
-        holder.addButton.setOnClickListener(v -> {
-            String qtyStr = holder.quantity.getText().toString().trim();
-            if (!qtyStr.isEmpty()) {
-                Toast.makeText(context, qtyStr + " units of " + product.getName() + " added to cart.", Toast.LENGTH_SHORT).show();
-                holder.quantity.setText("");
+    // Prefer the small pre-generated thumbnail; the original photo is only a fallback until
+    // the backfill has produced one. Read permission on the original was persisted when it
+    // was picked. Bind and preload build the same request so preloaded images are cache hits.
+    private RequestBuilder<Drawable> imageRequest(ProductModel product) {
+        Object source = product.getThumbnailPath() != null
+                ? new File(product.getThumbnailPath())
+                : product.getParsedImageUri();
+        if (source == null) {
+            return null;
+        }
+        return Glide.with(context)
+                .load(source)
+                .override(ThumbnailGenerator.THUMBNAIL_SIZE_PX)
+                .centerCrop();
+    }
+
+    @NonNull
+    @Override
+    public List<ProductModel> getPreloadItems(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(getItem(position));
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull ProductModel product) {
+        return imageRequest(product);
+    }
+
+    private ProductModel productAt(ProductViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        return position == RecyclerView.NO_POSITION ? null : getItem(position);
+    }
+
+    private void onAddToCart(ProductViewHolder holder, ProductModel product) {
+        String qtyStr = holder.quantity.getText().toString().trim();
+        int quantity;
+        try {
+            quantity = qtyStr.isEmpty() ? 0 : Integer.parseInt(qtyStr);
+        } catch (NumberFormatException e) {
+            quantity = 0;
+        }
+        if (quantity <= 0) {
+            Toast.makeText(context, "Please enter a quantity", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        int added = quantity;
+        salesRepository.addToCart(product.getId(), quantity, success -> {
+            if (success) {
+                Toast.makeText(context, added + " units of " + product.getName() + " added to cart.", Toast.LENGTH_SHORT).show();
             } else {
-                Toast.makeText(context, "Please enter a quantity", Toast.LENGTH_SHORT).show();
+                Toast.makeText(context, "Could not add " + product.getName() + " to cart", Toast.LENGTH_SHORT).show();
             }
         });
-
-        // Long press to delete/update
-        holder.itemView.setOnLongClickListener(v -> {
-            new android.app.AlertDialog.Builder(context)
-                    .setTitle("Product Options")
-                    .setMessage("Do you want to delete or update " + product.getName() + "?")
-                    .setPositiveButton("Delete", (dialog, which) -> {
-                        db.deleteProductById(product.getId());
-                        refreshData();
-                        Toast.makeText(context, product.getName() + " deleted", Toast.LENGTH_SHORT).show();
-                    })
-                    .setNegativeButton("Cancel", null)
-                    .setNeutralButton("Update", (dialog, which) -> {
-                        Intent intent = new Intent(context, AddProductActivity.class);
-                        intent.putExtra("productId", product.getId());
-                        intent.putExtra("productName", product.getName());
-                        intent.putExtra("productUnits", product.getUnits());
-                        intent.putExtra("productPrice", product.getPrice());
-                        intent.putExtra("productImageUri", product.getImageUri()); // Changed back to URI
-                        ((HomePageActivity) context).startActivityForResult(intent, HomePageActivity.ADD_PRODUCT_REQUEST);
-                    })
-                    .show();
-            return true;
-        });
+        holder.quantity.setText("");
     }
 
-    @Override
-    public int getItemCount() {
-        return productList.size();
+    // Long press to delete/update
+    private void showProductOptions(ProductModel product) {
+        new android.app.AlertDialog.Builder(context)
+                .setTitle("Product Options")
+                .setMessage("Do you want to delete or update " + product.getName() + "?")
+                .setPositiveButton("Delete", (dialog, which) -> {
+                    // The grid drops the row when the delete event arrives
+                    repository.deleteProductById(product.getId(), ignored ->
+                            Toast.makeText(context, product.getName() + " deleted", Toast.LENGTH_SHORT).show());
+                })
+                .setNegativeButton("Cancel", null)
+                .setNeutralButton("Update", (dialog, which) -> {
+                    // The editor loads the product itself; the saved change comes back as an event
+                    Intent intent = new Intent(context, AddProductActivity.class);
+                    intent.putExtra(AddProductActivity.EXTRA_PRODUCT_ID, product.getId());
+                    context.startActivity(intent);
+                })
+                .show();
     }
 
     public static class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -140,4 +284,4 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
             addButton = itemView.findViewById(R.id.btn_add_cart);
         }
     }
-}
\ No newline at end of file
+}
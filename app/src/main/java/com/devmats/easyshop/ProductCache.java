@@ -0,0 +1,212 @@
+package com.devmats.easyshop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Write-through, LRU-bounded cache of products that sits in front of the products table.
+// Entries are indexed by id and by case-folded name; DBHelper updates it on every write,
+// so a hit is always as fresh as the database.
+public class ProductCache {
+
+    private static final int MAX_CACHED_PAGES = 16;
+    private static final int MAX_NAME_LOOKUPS = 256;
+
+    private final int maxEntries;
+    private final LinkedHashMap<Integer, ProductModel> byId;
+    private final HashMap<String, Integer> idByName = new HashMap<>();
+    // Results of name checks for products that are not cached themselves,
+    // so repeated duplicate checks skip SQLite whether the answer was yes or no
+    private final LinkedHashMap<String, Boolean> nameLookups;
+    // Ids of recently served pages; any write clears them since it can shift page boundaries
+    private final LinkedHashMap<String, int[]> pages;
+
+    // Bumped by every write so a row or page read that raced with it is not cached
+    private long version;
+    private long hitCount;
+    private long missCount;
+
+    public ProductCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.byId = new LinkedHashMap<Integer, ProductModel>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ProductModel> eldest) {
+                if (size() > ProductCache.this.maxEntries) {
+                    idByName.remove(key(eldest.getValue().getName()));
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.nameLookups = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_NAME_LOOKUPS;
+            }
+        };
+        this.pages = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+    }
+
+    // Returns TRUE/FALSE when the answer is known from memory, or null on a miss
+    public synchronized Boolean containsName(String name) {
+        String key = key(name);
+        if (idByName.containsKey(key)) {
+            hitCount++;
+            return Boolean.TRUE;
+        }
+        Boolean known = nameLookups.get(key);
+        if (known != null) {
+            hitCount++;
+            return known;
+        }
+        missCount++;
+        return null;
+    }
+
+    public synchronized void putNameLookup(String name, boolean exists) {
+        nameLookups.put(key(name), exists);
+    }
+
+    public synchronized ProductModel get(int id) {
+        ProductModel product = byId.get(id);
+        if (product != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return product;
+    }
+
+    // Same as get() but without touching the hit/miss counters, for internal bookkeeping
+    public synchronized ProductModel peek(int id) {
+        return byId.get(id);
+    }
+
+    public synchronized void put(ProductModel product) {
+        ProductModel previous = byId.put(product.getId(), product);
+        if (previous != null) {
+            idByName.remove(key(previous.getName()));
+            nameLookups.remove(key(previous.getName()));
+        }
+        String key = key(product.getName());
+        idByName.put(key, product.getId());
+        nameLookups.remove(key);
+    }
+
+    // For rows read outside a write: a read that raced with a write may hold the old row,
+    // so it is only cached when no write has happened since readVersion was taken
+    public synchronized void put(ProductModel product, long readVersion) {
+        if (readVersion == version) {
+            put(product);
+        }
+    }
+
+    public synchronized void remove(int id) {
+        ProductModel previous = byId.remove(id);
+        if (previous != null) {
+            idByName.remove(key(previous.getName()));
+            nameLookups.remove(key(previous.getName()));
+        } else {
+            // We don't know which name the row had, so no remembered lookup can be trusted
+            nameLookups.clear();
+        }
+    }
+
+    // A page is only served from memory when every one of its rows is still cached
+    public synchronized ArrayList<ProductModel> getPage(long anchorId, boolean forward, int limit) {
+        int[] ids = pages.get(pageKey(anchorId, forward, limit));
+        if (ids != null) {
+            ArrayList<ProductModel> page = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                ProductModel product = byId.get(id);
+                if (product == null) {
+                    break;
+                }
+                page.add(product);
+            }
+            if (page.size() == ids.length) {
+                hitCount++;
+                return page;
+            }
+        }
+        missCount++;
+        return null;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void putPage(long anchorId, boolean forward, int limit, ArrayList<ProductModel> page,
+                                     long readVersion) {
+        if (readVersion != version) {
+            return;
+        }
+        int[] ids = new int[page.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ProductModel product = page.get(i);
+            ids[i] = product.getId();
+            put(product);
+        }
+        pages.put(pageKey(anchorId, forward, limit), ids);
+    }
+
+    public synchronized void invalidatePages() {
+        version++;
+        pages.clear();
+    }
+
+    public synchronized void clear() {
+        version++;
+        byId.clear();
+        idByName.clear();
+        nameLookups.clear();
+        pages.clear();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // Folds case the way SQLite's NOCASE does: ASCII letters only, whatever the locale. A
+    // Unicode-aware fold would call "Äpfel" and "äpfel" the same name while the unique index
+    // accepts both, and in a Turkish locale "TITLE" would no longer fold to "title".
+    private static String key(String name) {
+        if (name == null) {
+            return "";
+        }
+        char[] chars = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (chars == null) {
+                    chars = name.toCharArray();
+                }
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return chars == null ? name : new String(chars);
+    }
+
+    private static String pageKey(long anchorId, boolean forward, int limit) {
+        return anchorId + (forward ? ">" : "<") + limit;
+    }
+}
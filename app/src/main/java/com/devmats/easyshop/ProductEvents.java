@@ -0,0 +1,63 @@
+package com.devmats.easyshop;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Change notifications for the products table.
+// DBHelper publishes an event after every successful write, whichever screen made it, and
+// listeners are called on the main thread, so a screen can patch the single row that
+// changed instead of re-reading everything it shows.
+public class ProductEvents {
+
+    public interface Listener {
+        void onProductInserted(ProductModel product);
+
+        void onProductUpdated(ProductModel product);
+
+        void onProductDeleted(int productId);
+
+        // Many rows changed at once (e.g. a catalog import); re-query instead of patching
+        void onProductsChanged();
+    }
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void publishInserted(ProductModel product) {
+        AppExecutors.runOnMainThread(() -> {
+            for (Listener listener : listeners) {
+                listener.onProductInserted(product);
+            }
+        });
+    }
+
+    void publishUpdated(ProductModel product) {
+        AppExecutors.runOnMainThread(() -> {
+            for (Listener listener : listeners) {
+                listener.onProductUpdated(product);
+            }
+        });
+    }
+
+    void publishDeleted(int productId) {
+        AppExecutors.runOnMainThread(() -> {
+            for (Listener listener : listeners) {
+                listener.onProductDeleted(productId);
+            }
+        });
+    }
+
+    void publishChanged() {
+        AppExecutors.runOnMainThread(() -> {
+            for (Listener listener : listeners) {
+                listener.onProductsChanged();
+            }
+        });
+    }
+}
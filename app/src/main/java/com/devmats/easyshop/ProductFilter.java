@@ -0,0 +1,46 @@
+package com.devmats.easyshop;
+
+// What the home grid is narrowed to. Immutable: each with...() returns a changed copy, so a
+// filter handed to a background query can't change underneath it.
+public class ProductFilter {
+
+    public static final ProductFilter NONE = new ProductFilter(0, 0, 0, Long.MAX_VALUE, false);
+
+    public final long categoryId;   // 0 = any category
+    public final long tagId;        // 0 = any tag
+    public final long minPrice;     // minor currency units, inclusive
+    public final long maxPrice;
+    public final boolean inStockOnly;
+
+    private ProductFilter(long categoryId, long tagId, long minPrice, long maxPrice, boolean inStockOnly) {
+        this.categoryId = categoryId;
+        this.tagId = tagId;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStockOnly = inStockOnly;
+    }
+
+    public ProductFilter withCategory(long categoryId) {
+        return new ProductFilter(categoryId, tagId, minPrice, maxPrice, inStockOnly);
+    }
+
+    public ProductFilter withTag(long tagId) {
+        return new ProductFilter(categoryId, tagId, minPrice, maxPrice, inStockOnly);
+    }
+
+    public ProductFilter withPriceRange(long minPrice, long maxPrice) {
+        return new ProductFilter(categoryId, tagId, minPrice, maxPrice, inStockOnly);
+    }
+
+    public ProductFilter withInStockOnly(boolean inStockOnly) {
+        return new ProductFilter(categoryId, tagId, minPrice, maxPrice, inStockOnly);
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice > 0 || maxPrice < Long.MAX_VALUE;
+    }
+
+    public boolean isEmpty() {
+        return categoryId == 0 && tagId == 0 && !hasPriceRange() && !inStockOnly;
+    }
+}
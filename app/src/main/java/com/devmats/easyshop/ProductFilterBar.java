@@ -0,0 +1,142 @@
+package com.devmats.easyshop;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
+
+import java.util.ArrayList;
+
+// The chip row above the home grid: an "In stock" toggle, then one chip per category and per
+// popular tag with the number of products behind it. Tapping a category or tag selects it,
+// tapping it again clears it, and the grid re-pages through ProductPager.setFilter().
+// Counts come from the trigger-maintained facet rows; after writes they are re-read once the
+// burst has settled rather than on every event.
+public class ProductFilterBar {
+
+    private static final int TAG_CHIPS = 12;
+    private static final long REFRESH_DELAY_MS = 500;
+
+    private final ChipGroup chipGroup;
+    private final ProductRepository repository;
+    private final ProductPager pager;
+    private final LayoutInflater inflater;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable runRefresh = this::refresh;
+    private final Chip inStockChip;
+    private final ArrayList<Chip> categoryChips = new ArrayList<>();
+    private final ArrayList<Chip> tagChips = new ArrayList<>();
+
+    private int refreshGeneration = 0;
+
+    public ProductFilterBar(ChipGroup chipGroup, ProductRepository repository, ProductPager pager) {
+        this.chipGroup = chipGroup;
+        this.repository = repository;
+        this.pager = pager;
+        this.inflater = LayoutInflater.from(chipGroup.getContext());
+
+        inStockChip = newChip();
+        inStockChip.setText("In stock");
+        inStockChip.setOnClickListener(v -> apply(pager.getFilter().withInStockOnly(!pager.getFilter().inStockOnly)));
+        chipGroup.addView(inStockChip);
+    }
+
+    // Re-read the categories, tags and their counts now
+    public void refresh() {
+        handler.removeCallbacks(runRefresh);
+        int generation = ++refreshGeneration;
+        repository.getCatalogFacets(TAG_CHIPS, facets -> {
+            if (generation == refreshGeneration) {
+                showFacets(facets);
+            }
+        });
+    }
+
+    // Re-read them once a run of product writes (a checkout, an import) has gone quiet
+    public void scheduleRefresh() {
+        handler.removeCallbacks(runRefresh);
+        handler.postDelayed(runRefresh, REFRESH_DELAY_MS);
+    }
+
+    public void cancel() {
+        handler.removeCallbacks(runRefresh);
+        refreshGeneration++;
+    }
+
+    private void showFacets(CatalogFacets facets) {
+        // Everything after the stock toggle is rebuilt; it is only a few dozen chips
+        chipGroup.removeViews(1, chipGroup.getChildCount() - 1);
+        categoryChips.clear();
+        tagChips.clear();
+        for (CatalogFacets.Facet category : facets.categories) {
+            categoryChips.add(addFacetChip(category, false));
+        }
+        for (CatalogFacets.Facet tag : facets.tags) {
+            tagChips.add(addFacetChip(tag, true));
+        }
+
+        // A selection whose last product has gone has no chip left to clear it with
+        ProductFilter filter = pager.getFilter();
+        if (filter.categoryId != 0 && find(categoryChips, filter.categoryId) == null) {
+            filter = filter.withCategory(0);
+        }
+        if (filter.tagId != 0 && find(tagChips, filter.tagId) == null) {
+            filter = filter.withTag(0);
+        }
+        if (filter != pager.getFilter()) {
+            pager.setFilter(filter);
+        }
+        updateChips();
+    }
+
+    private Chip addFacetChip(CatalogFacets.Facet facet, boolean isTag) {
+        Chip chip = newChip();
+        chip.setTag(facet);
+        chip.setOnClickListener(v -> {
+            ProductFilter current = pager.getFilter();
+            if (isTag) {
+                apply(current.withTag(current.tagId == facet.id ? 0 : facet.id));
+            } else {
+                apply(current.withCategory(current.categoryId == facet.id ? 0 : facet.id));
+            }
+        });
+        chipGroup.addView(chip);
+        return chip;
+    }
+
+    private void apply(ProductFilter filter) {
+        pager.setFilter(filter);
+        updateChips();
+    }
+
+    // Checked state follows the pager's filter, and counts follow the stock toggle
+    private void updateChips() {
+        ProductFilter filter = pager.getFilter();
+        inStockChip.setChecked(filter.inStockOnly);
+        for (Chip chip : categoryChips) {
+            CatalogFacets.Facet facet = (CatalogFacets.Facet) chip.getTag();
+            chip.setText(facet.name + " (" + facet.getCount(filter.inStockOnly) + ")");
+            chip.setChecked(facet.id == filter.categoryId);
+        }
+        for (Chip chip : tagChips) {
+            CatalogFacets.Facet facet = (CatalogFacets.Facet) chip.getTag();
+            chip.setText("#" + facet.name + " (" + facet.getCount(filter.inStockOnly) + ")");
+            chip.setChecked(facet.id == filter.tagId);
+        }
+    }
+
+    private static Chip find(ArrayList<Chip> chips, long facetId) {
+        for (Chip chip : chips) {
+            if (((CatalogFacets.Facet) chip.getTag()).id == facetId) {
+                return chip;
+            }
+        }
+        return null;
+    }
+
+    private Chip newChip() {
+        return (Chip) inflater.inflate(R.layout.filter_chip, chipGroup, false);
+    }
+}
@@ -0,0 +1,256 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+
+// Imports a product catalog from a CSV or JSON document picked through the Storage Access Framework.
+// The file is streamed row by row into DBHelper.ProductBulkWriter, so memory use does not depend
+// on the catalog size.
+//
+// CSV:  name,units,price[,imageUri[,category[,barcode]]]   (a header row with those names is optional)
+// JSON: [{"name": "...", "units": "...", "price": "...", "imageUri": "...", "category": "...",
+//         "barcode": "..."}, ...]
+public class ProductImporter {
+    private static final String TAG = "ProductImporter";
+
+    public interface ProgressListener {
+        void onProgress(int rowsProcessed);
+    }
+
+    public static class Result {
+        public final int inserted;
+        public final int merged;
+        public final int skipped;
+        public final String error;
+
+        Result(int inserted, int merged, int skipped, String error) {
+            this.inserted = inserted;
+            this.merged = merged;
+            this.skipped = skipped;
+            this.error = error;
+        }
+    }
+
+    // What add() did with a row
+    private static final int ROW_INVALID = 0;
+    private static final int ROW_WRITTEN = 1;
+    private static final int ROW_BATCH_COMMITTED = 2;   // written, and it completed a batch
+
+    private final Context context;
+    private final DBHelper db;
+
+    public ProductImporter(Context context, DBHelper db) {
+        this.context = context.getApplicationContext();
+        this.db = db;
+    }
+
+    // Runs on the calling thread; use ProductRepository.importProducts from the UI. Imports run
+    // on the shared disk pool and may overlap, so all per-import state is local to the call.
+    public Result importFrom(Uri uri, boolean mergeDuplicates, ProgressListener listener) {
+        int invalidRows = 0;
+        DBHelper.ProductBulkWriter writer = db.openProductBulkWriter(mergeDuplicates);
+        boolean successful = false;
+        String error = null;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + uri);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            if (looksLikeJson(reader)) {
+                invalidRows = importJson(reader, writer, listener);
+            } else {
+                invalidRows = importCsv(reader, writer, listener);
+            }
+            successful = true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Import failed", e);
+            error = e.getMessage();
+        } finally {
+            // Batches committed before a failure stay; only the last partial batch is rolled back
+            writer.finish(successful);
+        }
+        return new Result(writer.getInserted(), writer.getMerged(), writer.getSkipped() + invalidRows, error);
+    }
+
+    private static boolean looksLikeJson(BufferedReader reader) throws IOException {
+        reader.mark(1024);
+        int c;
+        do {
+            c = reader.read();
+        } while (c != -1 && (Character.isWhitespace(c) || c == '\uFEFF'));
+        reader.reset();
+        return c == '[' || c == '{';
+    }
+
+    // Returns the number of rows skipped as invalid
+    private int importCsv(BufferedReader reader, DBHelper.ProductBulkWriter writer,
+                          ProgressListener listener) throws IOException {
+        int processed = 0;
+        int invalidRows = 0;
+        String line;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            if (firstLine) {
+                firstLine = false;
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.toLowerCase(Locale.ROOT).startsWith("name,")) {
+                    continue;
+                }
+            }
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            ArrayList<String> fields = parseCsvLine(line);
+            processed++;
+            int outcome = add(writer, field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3),
+                    field(fields, 4), field(fields, 5));
+            if (outcome == ROW_INVALID) {
+                invalidRows++;
+            } else if (outcome == ROW_BATCH_COMMITTED && listener != null) {
+                listener.onProgress(processed);
+            }
+        }
+        if (listener != null) {
+            listener.onProgress(processed);
+        }
+        return invalidRows;
+    }
+
+    // Returns the number of rows skipped as invalid
+    private int importJson(BufferedReader reader, DBHelper.ProductBulkWriter writer,
+                           ProgressListener listener) throws IOException {
+        int processed = 0;
+        int invalidRows = 0;
+        JsonReader json = new JsonReader(reader);
+        json.beginArray();
+        while (json.hasNext()) {
+            String name = null, units = null, price = null, imageUri = null, category = null,
+                    barcode = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String key = json.nextName();
+                if (json.peek() == JsonToken.NULL) {
+                    json.nextNull();
+                    continue;
+                }
+                switch (key) {
+                    case "name":
+                        name = json.nextString();
+                        break;
+                    case "units":
+                        units = json.nextString();
+                        break;
+                    case "price":
+                        price = json.nextString();
+                        break;
+                    case "imageUri":
+                        imageUri = json.nextString();
+                        break;
+                    case "category":
+                        category = json.nextString();
+                        break;
+                    case "barcode":
+                        barcode = json.nextString();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            processed++;
+            int outcome = add(writer, name, units, price, imageUri, category, barcode);
+            if (outcome == ROW_INVALID) {
+                invalidRows++;
+            } else if (outcome == ROW_BATCH_COMMITTED && listener != null) {
+                listener.onProgress(processed);
+            }
+        }
+        json.endArray();
+        if (listener != null) {
+            listener.onProgress(processed);
+        }
+        return invalidRows;
+    }
+
+    // Rows without a name or with unparseable numbers are counted as skipped, not fatal
+    private static int add(DBHelper.ProductBulkWriter writer, String name, String units,
+                           String price, String imageUri, String category, String barcode) {
+        name = blankToNull(name);
+        units = blankToNull(units);
+        price = blankToNull(price);
+        if (name == null || units == null || price == null) {
+            return ROW_INVALID;
+        }
+
+        int parsedUnits;
+        long parsedPrice;
+        try {
+            parsedUnits = Integer.parseInt(units);
+            parsedPrice = Prices.parse(price);
+        } catch (NumberFormatException e) {
+            return ROW_INVALID;
+        }
+        if (parsedUnits < 0) {
+            return ROW_INVALID;
+        }
+        boolean committed = writer.add(name, parsedUnits, parsedPrice, blankToNull(imageUri),
+                blankToNull(category), blankToNull(barcode));
+        return committed ? ROW_BATCH_COMMITTED : ROW_WRITTEN;
+    }
+
+    private static String field(ArrayList<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Minimal RFC 4180 field splitter: quoted fields may contain commas and doubled quotes
+    static ArrayList<String> parseCsvLine(String line) {
+        ArrayList<String> fields = new ArrayList<>(6);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
@@ -1,18 +1,36 @@
 package com.devmats.easyshop;
 
+import android.net.Uri;
+
+import java.util.Objects;
+
 public class ProductModel {
     private int id;
     private String name;
-    private String units;
-    private String price;
+    private int units;
+    private long price;       // minor currency units, see Prices
     private String imageUri;  // Changed back to imageUri
+    private String thumbnailPath;  // small WebP in app storage, see ThumbnailGenerator
+    private String barcode;        // EAN/UPC or shop SKU as the scanner types it; null if none
+    // Parsed on first use so binding a recycled row doesn't parse the same string again
+    private Uri parsedImageUri;
+    // Grid labels, built on first bind and reused when the row is scrolled back into view
+    private String priceLabel;
+    private String unitsLabel;
 
-    public ProductModel(int id, String name, String units, String price, String imageUri) {
+    public ProductModel(int id, String name, int units, long price, String imageUri, String thumbnailPath) {
+        this(id, name, units, price, imageUri, thumbnailPath, null);
+    }
+
+    public ProductModel(int id, String name, int units, long price, String imageUri, String thumbnailPath,
+                        String barcode) {
         this.id = id;
         this.name = name;
         this.units = units;
         this.price = price;
         this.imageUri = imageUri;
+        this.thumbnailPath = thumbnailPath;
+        this.barcode = barcode;
     }
 
     // Getters
@@ -24,11 +42,11 @@ public class ProductModel {
         return name;
     }
 
-    public String getUnits() {
+    public int getUnits() {
         return units;
     }
 
-    public String getPrice() {
+    public long getPrice() {
         return price;
     }
 
@@ -36,8 +54,61 @@ public class ProductModel {
         return imageUri;
     }
 
+    // Null when the product has no image
+    public Uri getParsedImageUri() {
+        if (parsedImageUri == null && imageUri != null && !imageUri.isEmpty()) {
+            parsedImageUri = Uri.parse(imageUri);
+        }
+        return parsedImageUri;
+    }
+
+    // "৳ 12.50"
+    public String getPriceLabel() {
+        if (priceLabel == null) {
+            priceLabel = "৳ " + Prices.format(price);
+        }
+        return priceLabel;
+    }
+
+    // "12 units"
+    public String getUnitsLabel() {
+        if (unitsLabel == null) {
+            unitsLabel = units + " units";
+        }
+        return unitsLabel;
+    }
+
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public String getBarcode() {
+        return barcode;
+    }
+
     // Setters (if needed)
     public void setImageUri(String imageUri) {  // Changed from setImageBase64()
         this.imageUri = imageUri;
+        this.parsedImageUri = null;
+    }
+
+    // Content equality, used by the adapter's DiffUtil callback to skip rebinding unchanged rows
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProductModel)) return false;
+        ProductModel other = (ProductModel) o;
+        return id == other.id
+                && Objects.equals(name, other.name)
+                && units == other.units
+                && price == other.price
+                && Objects.equals(imageUri, other.imageUri)
+                && Objects.equals(thumbnailPath, other.thumbnailPath)
+                && Objects.equals(barcode, other.barcode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, units, price, imageUri, thumbnailPath, barcode);
     }
-}
\ No newline at end of file
+}
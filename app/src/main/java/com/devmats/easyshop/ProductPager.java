@@ -0,0 +1,272 @@
+package com.devmats.easyshop;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+// Holds a sliding window of product pages for the home grid.
+// Pages are loaded by keyset (id) as the user scrolls in either direction and the
+// window never holds more than MAX_PAGES_IN_MEMORY pages, so memory stays flat
+// no matter how large the catalog is.
+public class ProductPager {
+
+    public static final int PAGE_SIZE = 60;            // 20 rows of the 3-column grid
+    public static final int PREFETCH_DISTANCE = 30;    // items left before we fetch the next page
+    public static final int MAX_PAGES_IN_MEMORY = 5;
+
+    // Receives a fresh snapshot of the window after every change; the adapter diffs it
+    // against what is on screen so only the affected rows are rebound
+    public interface Callback {
+        void onWindowChanged(ArrayList<ProductModel> snapshot);
+    }
+
+    private final ProductRepository repository;
+    private final ArrayDeque<ArrayList<ProductModel>> pages = new ArrayDeque<>();
+    private final ArrayList<ProductModel> items = new ArrayList<>();
+    private Callback callback;
+    private ProductFilter filter = ProductFilter.NONE;
+
+    private boolean reachedStart = true;
+    private boolean reachedEnd = false;
+    private boolean loading = false;
+    // Bumped on refresh so pages requested before it are discarded when they arrive
+    private int generation = 0;
+
+    public ProductPager(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
+    }
+
+    // Flattened view of the pages currently in memory
+    public ArrayList<ProductModel> getItems() {
+        return items;
+    }
+
+    public boolean hasMoreAfter() {
+        return !reachedEnd;
+    }
+
+    public boolean hasMoreBefore() {
+        return !reachedStart;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public ProductFilter getFilter() {
+        return filter;
+    }
+
+    // Narrow the window to matching products, starting again from the top
+    public void setFilter(ProductFilter filter) {
+        this.filter = filter;
+        refresh();
+    }
+
+    // Drop the window and start again from the top of the catalog
+    public void refresh() {
+        pages.clear();
+        items.clear();
+        reachedStart = true;
+        reachedEnd = false;
+        loading = false;
+        generation++;
+        // The first page is usually warm from the startup initializer; showing it
+        // synchronously lets the grid fill in the first frame instead of a later one
+        ArrayList<ProductModel> cached = filter.isEmpty() ? repository.peekProductPage(0, true, PAGE_SIZE) : null;
+        if (cached != null) {
+            appendPage(cached);
+            return;
+        }
+        loadNext();
+    }
+
+    // Re-read the rows currently in the window with a single query, e.g. after a write.
+    // The window keeps its position, so the diff only touches rows that actually changed.
+    public void reload() {
+        if (items.isEmpty()) {
+            refresh();
+            return;
+        }
+        int pageCount = pages.size();
+        long anchor = items.get(0).getId() - 1;
+        loading = true;
+        int requestGeneration = ++generation;
+        repository.getProductPage(filter, anchor, true, pageCount * PAGE_SIZE, rows -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (rows.isEmpty()) {
+                refresh();
+                return;
+            }
+            pages.clear();
+            items.clear();
+            for (int start = 0; start < rows.size(); start += PAGE_SIZE) {
+                pages.addLast(new ArrayList<>(rows.subList(start, Math.min(start + PAGE_SIZE, rows.size()))));
+            }
+            items.addAll(rows);
+            reachedEnd = rows.size() < pageCount * PAGE_SIZE;
+            publish();
+        });
+    }
+
+    public void loadNext() {
+        if (reachedEnd || loading) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        long anchor = items.isEmpty() ? 0 : items.get(items.size() - 1).getId();
+        repository.getProductPage(filter, anchor, true, PAGE_SIZE, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            appendPage(page);
+        });
+    }
+
+    public void loadPrevious() {
+        if (reachedStart || loading || items.isEmpty()) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        long anchor = items.get(0).getId();
+        repository.getProductPage(filter, anchor, false, PAGE_SIZE, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            prependPage(page);
+        });
+    }
+
+    // ---- Patching the window from ProductEvents, without re-querying ----
+    // A filtered window can't tell from the event alone whether the product now matches
+    // (category and tags aren't part of ProductModel), so it re-reads the window instead.
+
+    public void onProductInserted(ProductModel product) {
+        // Ids only grow, so a new product belongs at the very end of the catalog; it is
+        // only part of the window when the window already reaches the end
+        if (!reachedEnd || loading) {
+            return;
+        }
+        if (!filter.isEmpty()) {
+            reload();
+            return;
+        }
+        if (pages.isEmpty()) {
+            pages.addLast(new ArrayList<>());
+        }
+        pages.peekLast().add(product);
+        items.add(product);
+        publish();
+    }
+
+    public void onProductUpdated(ProductModel product) {
+        if (!filter.isEmpty()) {
+            reload();
+            return;
+        }
+        int index = indexOf(product.getId());
+        if (index < 0) {
+            return;
+        }
+        items.set(index, product);
+        for (ArrayList<ProductModel> page : pages) {
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).getId() == product.getId()) {
+                    page.set(i, product);
+                    publish();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void onProductDeleted(int productId) {
+        int index = indexOf(productId);
+        if (index < 0) {
+            return;
+        }
+        items.remove(index);
+        Iterator<ArrayList<ProductModel>> iterator = pages.iterator();
+        while (iterator.hasNext()) {
+            ArrayList<ProductModel> page = iterator.next();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).getId() == productId) {
+                    page.remove(i);
+                    if (page.isEmpty()) {
+                        iterator.remove();
+                    }
+                    publish();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int indexOf(int productId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId() == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendPage(ArrayList<ProductModel> page) {
+        if (page.size() < PAGE_SIZE) {
+            reachedEnd = true;
+        }
+        if (page.isEmpty()) {
+            if (items.isEmpty()) {
+                publish();
+            }
+            return;
+        }
+
+        pages.addLast(page);
+        items.addAll(page);
+
+        if (pages.size() > MAX_PAGES_IN_MEMORY) {
+            ArrayList<ProductModel> dropped = pages.removeFirst();
+            items.subList(0, dropped.size()).clear();
+            reachedStart = false;
+        }
+        publish();
+    }
+
+    private void prependPage(ArrayList<ProductModel> page) {
+        if (page.size() < PAGE_SIZE) {
+            reachedStart = true;
+        }
+        if (page.isEmpty()) {
+            return;
+        }
+
+        pages.addFirst(page);
+        items.addAll(0, page);
+
+        if (pages.size() > MAX_PAGES_IN_MEMORY) {
+            ArrayList<ProductModel> dropped = pages.removeLast();
+            int position = items.size() - dropped.size();
+            items.subList(position, items.size()).clear();
+            reachedEnd = false;
+        }
+        publish();
+    }
+
+    private void publish() {
+        if (callback != null) {
+            callback.onWindowChanged(new ArrayList<>(items));
+        }
+    }
+}
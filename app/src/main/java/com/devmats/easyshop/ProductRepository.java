@@ -0,0 +1,159 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs product queries and writes off the main thread.
+// Activities and adapters should go through this class rather than calling DBHelper directly.
+public class ProductRepository {
+
+    private static ProductRepository instance;
+    private final Context appContext;
+    private final DBHelper db;
+    private final DbMetrics metrics;
+    private final ProductImporter importer;
+
+    // Package-private so tests can run one over their own database
+    ProductRepository(Context context, DBHelper db) {
+        this.appContext = context.getApplicationContext();
+        this.db = db;
+        this.metrics = db.getMetrics();
+        this.importer = new ProductImporter(context, db);
+    }
+
+    public static synchronized ProductRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProductRepository(context, DBHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    // Listeners hear about every product write, made through this repository or not
+    public void addProductListener(ProductEvents.Listener listener) {
+        db.getProductEvents().addListener(listener);
+    }
+
+    public void removeProductListener(ProductEvents.Listener listener) {
+        db.getProductEvents().removeListener(listener);
+    }
+
+    public void getProduct(int productId, DbCallback<ProductModel> callback) {
+        AppExecutors.runInBackground(metrics.timed("getProductById", () -> db.getProductById(productId)), callback);
+    }
+
+    public void getProductPage(long anchorId, boolean forward, int limit,
+                               DbCallback<ArrayList<ProductModel>> callback) {
+        AppExecutors.runInBackground(
+                metrics.timed("getProductPage", () -> db.getProductPage(anchorId, forward, limit)),
+                new ArrayList<>(), callback);
+    }
+
+    public void getProductPage(ProductFilter filter, long anchorId, boolean forward, int limit,
+                               DbCallback<ArrayList<ProductModel>> callback) {
+        if (filter.isEmpty()) {
+            getProductPage(anchorId, forward, limit, callback);
+            return;
+        }
+        AppExecutors.runInBackground(metrics.timed("getFilteredProductPage",
+                () -> db.getFilteredProductPage(filter, anchorId, forward, limit)), new ArrayList<>(), callback);
+    }
+
+    public void getProductByBarcode(String barcode, DbCallback<ProductModel> callback) {
+        AppExecutors.runInBackground(metrics.timed("getProductByBarcode", () -> db.getProductByBarcode(barcode)), callback);
+    }
+
+    public void getCatalogFacets(int tagLimit, DbCallback<CatalogFacets> callback) {
+        AppExecutors.runInBackground(metrics.timed("getCatalogFacets", () -> db.getCatalogFacets(tagLimit)),
+                new CatalogFacets(new ArrayList<>(), new ArrayList<>()), callback);
+    }
+
+    public void getProductCategory(int productId, DbCallback<String> callback) {
+        AppExecutors.runInBackground(metrics.timed("getProductCategory", () -> db.getProductCategory(productId)), callback);
+    }
+
+    public void getProductTags(int productId, DbCallback<ArrayList<String>> callback) {
+        AppExecutors.runInBackground(metrics.timed("getProductTags", () -> db.getProductTags(productId)),
+                new ArrayList<>(), callback);
+    }
+
+    // The page if it is already in memory, otherwise null; never blocks on the database
+    public ArrayList<ProductModel> peekProductPage(long anchorId, boolean forward, int limit) {
+        return db.peekProductPage(anchorId, forward, limit);
+    }
+
+    public void searchProducts(String query, int limit, DbCallback<ArrayList<ProductModel>> callback) {
+        AppExecutors.runInBackground(metrics.timed("searchProducts", () -> db.searchProducts(query, limit)),
+                new ArrayList<>(), callback);
+    }
+
+    public void getProductsByPriceRange(long minPrice, long maxPrice, long afterPrice, long afterId, int limit,
+                                        DbCallback<ArrayList<ProductModel>> callback) {
+        AppExecutors.runInBackground(metrics.timed("getProductsByPriceRange",
+                () -> db.getProductsByPriceRange(minPrice, maxPrice, afterPrice, afterId, limit)),
+                new ArrayList<>(), callback);
+    }
+
+    public void getLowStockProducts(int threshold, int limit, DbCallback<ArrayList<ProductModel>> callback) {
+        AppExecutors.runInBackground(
+                metrics.timed("getLowStockProducts", () -> db.getLowStockProducts(threshold, limit)),
+                new ArrayList<>(), callback);
+    }
+
+    public void checkIfProductExists(String name, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(
+                metrics.timed("checkIfProductExists", () -> db.checkIfProductExists(name)), false, callback);
+    }
+
+    public void insertProduct(String name, int units, long price, String imageUri, String thumbnailPath,
+                              DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("insertProduct",
+                () -> db.insertProduct(name, units, price, imageUri, thumbnailPath)), false, callback);
+    }
+
+    public void insertProduct(String name, int units, long price, String imageUri, String thumbnailPath,
+                              String barcode, String category, List<String> tags, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("insertProduct", () -> db.insertProduct(name, units, price,
+                imageUri, thumbnailPath, barcode, category, tags)), false, callback);
+    }
+
+    public void updateProduct(int productId, String name, int units, long price, String imageUri,
+                              String thumbnailPath, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("updateProduct",
+                () -> db.updateProduct(productId, name, units, price, imageUri, thumbnailPath)), false, callback);
+    }
+
+    public void updateProduct(int productId, String name, int units, long price, String imageUri,
+                              String thumbnailPath, String barcode, String category, List<String> tags,
+                              DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("updateProduct", () -> db.updateProduct(productId, name,
+                units, price, imageUri, thumbnailPath, barcode, category, tags)), false, callback);
+    }
+
+    // Decodes a downsampled copy of the picked image; the callback gets null if it can't be read
+    public void createThumbnail(Uri imageUri, DbCallback<String> callback) {
+        AppExecutors.runInBackground(() -> ThumbnailGenerator.createThumbnail(appContext, imageUri), callback);
+    }
+
+    // Thumbnails picked for a product that was never saved are removed again
+    public void discardThumbnail(String thumbnailPath) {
+        AppExecutors.diskIO().execute(() -> ThumbnailGenerator.deleteThumbnail(thumbnailPath));
+    }
+
+    public void deleteProductById(int id, DbCallback<Void> callback) {
+        AppExecutors.runInBackground(metrics.timed("deleteProductById", () -> {
+            db.deleteProductById(id);
+            return null;
+        }), callback);
+    }
+
+    // Progress is reported on the main thread after every committed batch
+    public void importProducts(Uri uri, boolean mergeDuplicates, ProductImporter.ProgressListener progress,
+                               DbCallback<ProductImporter.Result> callback) {
+        AppExecutors.runInBackground(metrics.timed("importProducts", () -> importer.importFrom(uri,
+                mergeDuplicates, rows -> AppExecutors.runOnMainThread(() -> progress.onProgress(rows)))),
+                new ProductImporter.Result(0, 0, 0, "Import failed"), callback);
+    }
+}
@@ -0,0 +1,106 @@
+package com.devmats.easyshop;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import java.util.ArrayList;
+
+// The one place product rows become ProductModels. Column indexes are looked up by name once
+// per cursor instead of relying on ordinals, and when ProductCache already holds an identical
+// copy of a row, that object is returned instead of a new one: its text columns are compared
+// through a reused CharArrayBuffer, so re-reading an unchanged window allocates nothing per row.
+public class ProductRowMapper {
+
+    // Select exactly these columns for any query read through the mapper
+    public static final String[] PROJECTION = {
+            DBHelper.KEY_ID, DBHelper.KEY_PRODUCT_NAME, DBHelper.KEY_PRODUCT_UNITS,
+            DBHelper.KEY_PRODUCT_PRICE, DBHelper.KEY_PRODUCT_IMAGE_URI, DBHelper.KEY_PRODUCT_THUMBNAIL,
+            DBHelper.KEY_PRODUCT_BARCODE};
+
+    private final ProductCache cache;
+    private final int idColumn;
+    private final int nameColumn;
+    private final int unitsColumn;
+    private final int priceColumn;
+    private final int imageUriColumn;
+    private final int thumbnailColumn;
+    private final int barcodeColumn;
+    private final CharArrayBuffer buffer = new CharArrayBuffer(64);
+
+    // cache may be null, in which case every row gets a new model
+    public ProductRowMapper(Cursor cursor, ProductCache cache) {
+        this.cache = cache;
+        idColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_ID);
+        nameColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_NAME);
+        unitsColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_UNITS);
+        priceColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_PRICE);
+        imageUriColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_IMAGE_URI);
+        thumbnailColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_THUMBNAIL);
+        barcodeColumn = cursor.getColumnIndexOrThrow(DBHelper.KEY_PRODUCT_BARCODE);
+    }
+
+    // The same projection for a query that joins products under a table alias, e.g. "p"
+    public static String selectList(String tableAlias) {
+        StringBuilder columns = new StringBuilder();
+        for (String column : PROJECTION) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(tableAlias).append('.').append(column).append(" AS ").append(column);
+        }
+        return columns.toString();
+    }
+
+    // Reads the rest of the cursor front to back, which keeps each CursorWindow fill sequential
+    public void mapAll(Cursor cursor, ArrayList<ProductModel> into) {
+        into.ensureCapacity(into.size() + cursor.getCount());
+        while (cursor.moveToNext()) {
+            into.add(map(cursor));
+        }
+    }
+
+    // Maps the cursor's current row
+    public ProductModel map(Cursor cursor) {
+        int id = cursor.getInt(idColumn);
+        int units = cursor.getInt(unitsColumn);
+        long price = cursor.getLong(priceColumn);
+
+        ProductModel cached = cache != null ? cache.peek(id) : null;
+        if (cached != null
+                && cached.getUnits() == units
+                && cached.getPrice() == price
+                && sameText(cursor, nameColumn, cached.getName())
+                && sameText(cursor, imageUriColumn, cached.getImageUri())
+                && sameText(cursor, thumbnailColumn, cached.getThumbnailPath())
+                && sameText(cursor, barcodeColumn, cached.getBarcode())) {
+            return cached;
+        }
+        return new ProductModel(id,
+                cursor.getString(nameColumn),
+                units,
+                price,
+                cursor.getString(imageUriColumn),
+                cursor.getString(thumbnailColumn),
+                cursor.getString(barcodeColumn));
+    }
+
+    private boolean sameText(Cursor cursor, int column, String expected) {
+        if (cursor.isNull(column)) {
+            return expected == null;
+        }
+        if (expected == null) {
+            return false;
+        }
+        cursor.copyStringToBuffer(column, buffer);
+        if (buffer.sizeCopied != expected.length()) {
+            return false;
+        }
+        char[] chars = buffer.data;
+        for (int i = 0; i < buffer.sizeCopied; i++) {
+            if (chars[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.devmats.easyshop;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+
+// Search-as-you-type for the home grid.
+// Keystrokes are debounced, the FTS query runs on the disk executor, and results
+// for anything but the latest query are dropped when they arrive.
+public class ProductSearchController implements TextWatcher {
+
+    private static final long DEBOUNCE_MS = 250;
+    private static final int RESULT_LIMIT = 100;
+
+    private final ProductRepository repository;
+    private final ProductAdapter adapter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable runSearch = this::runSearch;
+
+    private String pendingQuery = "";
+    private int queryGeneration = 0;
+
+    public ProductSearchController(ProductRepository repository, ProductAdapter adapter) {
+        this.repository = repository;
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        pendingQuery = s.toString().trim();
+        handler.removeCallbacks(runSearch);
+        if (pendingQuery.isEmpty()) {
+            queryGeneration++;
+            adapter.clearSearchResults();
+        } else {
+            handler.postDelayed(runSearch, DEBOUNCE_MS);
+        }
+    }
+
+    // Re-run the current query, e.g. after a product was added or edited
+    public void refresh() {
+        if (!pendingQuery.isEmpty()) {
+            handler.removeCallbacks(runSearch);
+            runSearch();
+        }
+    }
+
+    public void cancel() {
+        handler.removeCallbacks(runSearch);
+        queryGeneration++;
+    }
+
+    private void runSearch() {
+        int generation = ++queryGeneration;
+        repository.searchProducts(pendingQuery, RESULT_LIMIT, results -> {
+            if (generation == queryGeneration) {
+                adapter.showSearchResults(results);
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.devmats.easyshop;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+import java.text.DateFormat;
+import java.util.Date;
+
+public class SaleHistoryAdapter extends ListAdapter<SaleRecord, SaleHistoryAdapter.SaleViewHolder> {
+
+    private static final DiffUtil.ItemCallback<SaleRecord> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<SaleRecord>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull SaleRecord oldItem, @NonNull SaleRecord newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull SaleRecord oldItem, @NonNull SaleRecord newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    // Formatter and Date are reused across binds
+    private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT);
+    private final Date date = new Date();
+
+    public SaleHistoryAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    @NonNull
+    @Override
+    public SaleViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.sale_row, parent, false);
+        return new SaleViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SaleViewHolder holder, int position) {
+        SaleRecord sale = getItem(position);
+        date.setTime(sale.getTimestamp());
+        holder.date.setText(dateFormat.format(date));
+        holder.detail.setText("Sale #" + sale.getId() + " · " + sale.getItemCount() + " items");
+        holder.total.setText("৳ " + Prices.format(sale.getTotal()));
+    }
+
+    public static class SaleViewHolder extends RecyclerView.ViewHolder {
+        TextView date, detail, total;
+
+        public SaleViewHolder(@NonNull View itemView) {
+            super(itemView);
+            date = itemView.findViewById(R.id.sale_date);
+            detail = itemView.findViewById(R.id.sale_detail);
+            total = itemView.findViewById(R.id.sale_total);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.devmats.easyshop;
+
+import java.util.Objects;
+
+// One row of the sales history
+public class SaleRecord {
+    private final long id;
+    private final long timestamp;   // epoch millis
+    private final long total;       // minor currency units, see Prices
+    private final int itemCount;
+
+    public SaleRecord(long id, long timestamp, long total, int itemCount) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.total = total;
+        this.itemCount = itemCount;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SaleRecord)) return false;
+        SaleRecord other = (SaleRecord) o;
+        return id == other.id && timestamp == other.timestamp
+                && total == other.total && itemCount == other.itemCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, timestamp, total, itemCount);
+    }
+}
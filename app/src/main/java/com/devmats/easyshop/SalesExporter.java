@@ -0,0 +1,107 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// Writes the sales history for a date range as CSV to a document picked through the Storage
+// Access Framework. Rows go straight from the database cursor into a buffered stream, so
+// exporting a year of sales never holds more than one cursor window in memory.
+//
+// CSV: sale_id,date,product,quantity,unit_price,line_total,sale_total
+public class SalesExporter {
+    private static final String TAG = "SalesExporter";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static class Result {
+        public final int rows;
+        public final String error;
+
+        Result(int rows, String error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    private final Context context;
+    private final DBHelper db;
+
+    public SalesExporter(Context context, DBHelper db) {
+        this.context = context.getApplicationContext();
+        this.db = db;
+    }
+
+    // Runs on the calling thread; use SalesRepository.exportSales from the UI
+    public Result exportTo(Uri uri, long fromMillis, long toMillis) {
+        int rows = 0;
+        try (OutputStream out = context.getContentResolver().openOutputStream(uri, "wt")) {
+            if (out == null) {
+                throw new IOException("Cannot open " + uri);
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            rows = write(writer, fromMillis, toMillis);
+            writer.flush();
+            return new Result(rows, null);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Export failed", e);
+            return new Result(rows, e.getMessage());
+        }
+    }
+
+    int write(Writer writer, long fromMillis, long toMillis) throws IOException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        Date date = new Date();
+        int rows = 0;
+        writer.write("sale_id,date,product,quantity,unit_price,line_total,sale_total\n");
+        try (Cursor cursor = db.querySaleLinesForExport(fromMillis, toMillis)) {
+            while (cursor.moveToNext()) {
+                long quantity = cursor.getLong(3);
+                long unitPrice = cursor.getLong(4);
+                date.setTime(cursor.getLong(1));
+                writer.write(Long.toString(cursor.getLong(0)));
+                writer.write(',');
+                writer.write(dateFormat.format(date));
+                writer.write(',');
+                writeField(writer, cursor.getString(2));
+                writer.write(',');
+                writer.write(Long.toString(quantity));
+                writer.write(',');
+                writer.write(Prices.format(unitPrice));
+                writer.write(',');
+                writer.write(Prices.format(unitPrice * quantity));
+                writer.write(',');
+                writer.write(Prices.format(cursor.getLong(5)));
+                writer.write('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Quotes fields containing separators, quotes or line breaks (RFC 4180)
+    static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,168 @@
+package com.devmats.easyshop;
+
+import android.app.DatePickerDialog;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+
+// Sales newest first, loaded a page at a time by (timestamp, id) keyset as the user scrolls.
+// Each page is a seek on idx_sales_timestamp, so the last page is as fast as the first.
+public class SalesHistoryActivity extends AppCompatActivity {
+
+    private static final int EXPORT_SALES_REQUEST = 104;
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 15;
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private SalesRepository salesRepository;
+    private SaleHistoryAdapter adapter;
+    private Button btnFrom, btnTo, btnExport;
+    private TextView txtEmpty;
+
+    private final ArrayList<SaleRecord> sales = new ArrayList<>();
+    private long fromMillis;    // inclusive, start of the first day
+    private long toMillis;      // exclusive, start of the day after the last day
+    private boolean loading = false;
+    private boolean reachedEnd = false;
+    // Bumped when the range changes so pages for the old range are dropped
+    private int generation = 0;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_sales_history);
+
+        salesRepository = SalesRepository.getInstance(this);
+        btnFrom = findViewById(R.id.btn_date_from);
+        btnTo = findViewById(R.id.btn_date_to);
+        btnExport = findViewById(R.id.btn_export_sales);
+        txtEmpty = findViewById(R.id.txt_sales_empty);
+
+        Calendar today = startOfDay(Calendar.getInstance());
+        Calendar tomorrow = (Calendar) today.clone();
+        tomorrow.add(Calendar.DAY_OF_MONTH, 1);
+        Calendar from = (Calendar) today.clone();
+        from.add(Calendar.DAY_OF_MONTH, -(DEFAULT_RANGE_DAYS - 1));
+        fromMillis = from.getTimeInMillis();
+        toMillis = tomorrow.getTimeInMillis();
+
+        RecyclerView recyclerView = findViewById(R.id.recycler_view_sales);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        adapter = new SaleHistoryAdapter();
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= sales.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        btnFrom.setOnClickListener(v -> pickDate(true));
+        btnTo.setOnClickListener(v -> pickDate(false));
+        btnExport.setOnClickListener(v -> {
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/csv");
+            intent.putExtra(Intent.EXTRA_TITLE, "easyshop-sales.csv");
+            startActivityForResult(intent, EXPORT_SALES_REQUEST);
+        });
+
+        reload();
+    }
+
+    private void reload() {
+        DateFormat format = DateFormat.getDateInstance(DateFormat.MEDIUM);
+        btnFrom.setText("From " + format.format(fromMillis));
+        btnTo.setText("To " + format.format(toMillis - 1));
+        sales.clear();
+        adapter.submitList(new ArrayList<>());
+        reachedEnd = false;
+        loading = false;
+        generation++;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || reachedEnd) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        SaleRecord last = sales.isEmpty() ? null : sales.get(sales.size() - 1);
+        long beforeTimestamp = last == null ? Long.MAX_VALUE : last.getTimestamp();
+        long beforeId = last == null ? Long.MAX_VALUE : last.getId();
+        salesRepository.getSalesPage(fromMillis, toMillis, beforeTimestamp, beforeId, PAGE_SIZE, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            reachedEnd = page.size() < PAGE_SIZE;
+            sales.addAll(page);
+            adapter.submitList(new ArrayList<>(sales));
+            txtEmpty.setVisibility(sales.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    private void pickDate(boolean pickingFrom) {
+        Calendar current = Calendar.getInstance();
+        current.setTimeInMillis(pickingFrom ? fromMillis : toMillis - 1);
+        new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            Calendar picked = Calendar.getInstance();
+            picked.set(year, month, dayOfMonth);
+            startOfDay(picked);
+            if (pickingFrom) {
+                fromMillis = picked.getTimeInMillis();
+            } else {
+                picked.add(Calendar.DAY_OF_MONTH, 1);
+                toMillis = picked.getTimeInMillis();
+            }
+            if (fromMillis >= toMillis) {
+                Toast.makeText(this, "The start date must be before the end date", Toast.LENGTH_SHORT).show();
+            }
+            reload();
+        }, current.get(Calendar.YEAR), current.get(Calendar.MONTH), current.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
+    private static Calendar startOfDay(Calendar calendar) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == EXPORT_SALES_REQUEST && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            Uri uri = data.getData();
+            btnExport.setEnabled(false);
+            salesRepository.exportSales(uri, fromMillis, toMillis, result -> {
+                btnExport.setEnabled(true);
+                if (result.error != null) {
+                    Toast.makeText(this, "Export failed: " + result.error, Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(this, "Exported " + result.rows + " lines", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    }
+}
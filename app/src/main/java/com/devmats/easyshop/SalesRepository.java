@@ -0,0 +1,72 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.util.ArrayList;
+
+// Runs cart and sales queries and writes off the main thread
+public class SalesRepository {
+
+    private static SalesRepository instance;
+    private final DBHelper db;
+    private final DbMetrics metrics;
+    private final SalesExporter exporter;
+
+    private SalesRepository(Context context, DBHelper db) {
+        this.db = db;
+        this.metrics = db.getMetrics();
+        this.exporter = new SalesExporter(context, db);
+    }
+
+    public static synchronized SalesRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new SalesRepository(context, DBHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    public void addToCart(int productId, int quantity, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("addToCart", () -> db.addToCart(productId, quantity)),
+                false, callback);
+    }
+
+    // The callback gets the scanned product, or null if no product has that barcode
+    public void addToCartByBarcode(String barcode, DbCallback<ProductModel> callback) {
+        AppExecutors.runInBackground(metrics.timed("addToCartByBarcode", () -> db.addToCartByBarcode(barcode)), callback);
+    }
+
+    // Zero removes the line; the callback gets the updated cart
+    public void setCartQuantity(int productId, int quantity, DbCallback<ArrayList<CartItem>> callback) {
+        AppExecutors.runInBackground(metrics.timed("setCartQuantity", () -> {
+            db.setCartQuantity(productId, quantity);
+            return db.getCartItems();
+        }), new ArrayList<>(), callback);
+    }
+
+    public void getCartItems(DbCallback<ArrayList<CartItem>> callback) {
+        AppExecutors.runInBackground(metrics.timed("getCartItems", db::getCartItems), new ArrayList<>(), callback);
+    }
+
+    public void checkout(DbCallback<CheckoutResult> callback) {
+        AppExecutors.runInBackground(metrics.timed("checkout", db::checkout),
+                CheckoutResult.failed("Checkout failed"), callback);
+    }
+
+    public void getDashboardStats(DbCallback<DashboardStats> callback) {
+        AppExecutors.runInBackground(metrics.timed("getDashboardStats", db::getDashboardStats), callback);
+    }
+
+    public void getSalesPage(long fromMillis, long toMillis, long beforeTimestamp, long beforeId, int limit,
+                             DbCallback<ArrayList<SaleRecord>> callback) {
+        AppExecutors.runInBackground(metrics.timed("getSalesPage",
+                () -> db.getSalesPage(fromMillis, toMillis, beforeTimestamp, beforeId, limit)),
+                new ArrayList<>(), callback);
+    }
+
+    public void exportSales(Uri uri, long fromMillis, long toMillis, DbCallback<SalesExporter.Result> callback) {
+        AppExecutors.runInBackground(
+                metrics.timed("exportSales", () -> exporter.exportTo(uri, fromMillis, toMillis)),
+                new SalesExporter.Result(0, "Export failed"), callback);
+    }
+}
@@ -11,7 +11,6 @@ public class SignUpActivity extends AppCompatActivity {
     EditText edtUsername, edtEmail, edtPassword, edtConfirmPassword;
     Button btnSignUp;
     TextView txtLogin;
-    DBHelper db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -25,7 +24,7 @@ public class SignUpActivity extends AppCompatActivity {
         btnSignUp = findViewById(R.id.btn_signup);
         txtLogin = findViewById(R.id.txt_login);
         // In your activity's onCreate or where you need database access
-        DBHelper db = DBHelper.getInstance(this);
+        UserRepository userRepository = UserRepository.getInstance(this);
 
         btnSignUp.setOnClickListener(v -> {
             String username = edtUsername.getText().toString();
@@ -38,14 +37,17 @@ public class SignUpActivity extends AppCompatActivity {
             } else if (!password.equals(confirmPassword)) {
                 Toast.makeText(this, "Passwords do not match", Toast.LENGTH_SHORT).show();
             } else {
-                boolean inserted = db.insertUser(username, email, password);
-                if (inserted) {
-                    Toast.makeText(this, "Sign Up Successful", Toast.LENGTH_SHORT).show();
-                    startActivity(new Intent(SignUpActivity.this, MainActivity.class));
-                    finish();
-                } else {
-                    Toast.makeText(this, "User already exists", Toast.LENGTH_SHORT).show();
-                }
+                btnSignUp.setEnabled(false);
+                userRepository.insertUser(username, email, password, inserted -> {
+                    if (inserted) {
+                        Toast.makeText(this, "Sign Up Successful", Toast.LENGTH_SHORT).show();
+                        startActivity(new Intent(SignUpActivity.this, MainActivity.class));
+                        finish();
+                    } else {
+                        btnSignUp.setEnabled(true);
+                        Toast.makeText(this, "User already exists", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
 
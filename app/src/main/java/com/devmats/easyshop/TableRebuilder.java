@@ -0,0 +1,56 @@
+package com.devmats.easyshop;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+// Rebuilds a table with a new definition, for changes ALTER TABLE can't express
+// (column types, constraints). Rows are copied in primary-key order in fixed-size batches
+// so each statement stays small and progress can be logged on very large tables.
+// Indexes and triggers belong to the old table and must be recreated by the caller.
+public final class TableRebuilder {
+    private static final String TAG = "TableRebuilder";
+
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    private TableRebuilder() {
+    }
+
+    // createSql must create a table named `table + "_new"`. selectColumns are expressions
+    // over the old table (e.g. "CAST(price AS INTEGER)") matching insertColumns one to one.
+    public static void rebuild(SQLiteDatabase db, String table, String keyColumn, String createSql,
+                               String insertColumns, String selectColumns, int batchSize) {
+        String newTable = table + "_new";
+        db.execSQL("DROP TABLE IF EXISTS " + newTable);
+        db.execSQL(createSql);
+
+        SQLiteStatement copyBatch = db.compileStatement("INSERT INTO " + newTable + " (" + insertColumns + ")"
+                + " SELECT " + selectColumns + " FROM " + table
+                + " WHERE " + keyColumn + " > ? ORDER BY " + keyColumn + " LIMIT " + batchSize);
+        SQLiteStatement lastCopiedKey = db.compileStatement(
+                "SELECT IFNULL(MAX(" + keyColumn + "), -1) FROM " + newTable);
+        try {
+            long lastKey = Long.MIN_VALUE;
+            long copied = 0;
+            while (true) {
+                copyBatch.bindLong(1, lastKey);
+                int rows = copyBatch.executeUpdateDelete();
+                if (rows <= 0) {
+                    break;
+                }
+                copied += rows;
+                lastKey = lastCopiedKey.simpleQueryForLong();
+                if (rows < batchSize) {
+                    break;
+                }
+            }
+            Log.i(TAG, "Copied " + copied + " rows into " + newTable);
+        } finally {
+            copyBatch.close();
+            lastCopiedKey.close();
+        }
+
+        db.execSQL("DROP TABLE " + table);
+        db.execSQL("ALTER TABLE " + newTable + " RENAME TO " + table);
+    }
+}
@@ -0,0 +1,112 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+// Turns a picked product photo into a small square WebP in app-private storage.
+// The source is decoded with inSampleSize so a 12 MP photo never lands in memory at full
+// resolution, and the grid only ever loads these thumbnails.
+public final class ThumbnailGenerator {
+    private static final String TAG = "ThumbnailGenerator";
+
+    // A grid tile is about 120 x 100 dp; 256 px covers that up to xxhdpi
+    public static final int THUMBNAIL_SIZE_PX = 256;
+    private static final int WEBP_QUALITY = 80;
+    private static final String THUMBNAIL_DIR = "thumbnails";
+
+    private ThumbnailGenerator() {
+    }
+
+    // Blocking; call from the disk executor. Returns the thumbnail's absolute path, or null.
+    public static String createThumbnail(Context context, Uri source) {
+        try {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            try (InputStream in = context.getContentResolver().openInputStream(source)) {
+                BitmapFactory.decodeStream(in, null, bounds);
+            }
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+                return null;
+            }
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, THUMBNAIL_SIZE_PX);
+            Bitmap sampled;
+            try (InputStream in = context.getContentResolver().openInputStream(source)) {
+                sampled = BitmapFactory.decodeStream(in, null, options);
+            }
+            if (sampled == null) {
+                return null;
+            }
+
+            Bitmap thumbnail = centerCropSquare(sampled, THUMBNAIL_SIZE_PX);
+            if (thumbnail != sampled) {
+                sampled.recycle();
+            }
+
+            File dir = new File(context.getFilesDir(), THUMBNAIL_DIR);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return null;
+            }
+            File file = new File(dir, UUID.randomUUID() + ".webp");
+            try (OutputStream out = new FileOutputStream(file)) {
+                thumbnail.compress(webpFormat(), WEBP_QUALITY, out);
+            } finally {
+                thumbnail.recycle();
+            }
+            return file.getAbsolutePath();
+        } catch (IOException | SecurityException e) {
+            Log.e(TAG, "Could not create thumbnail for " + source, e);
+            return null;
+        }
+    }
+
+    public static void deleteThumbnail(String path) {
+        if (path != null && !new File(path).delete()) {
+            Log.w(TAG, "Could not delete thumbnail " + path);
+        }
+    }
+
+    // Largest power of two that keeps the shorter side at or above target
+    static int calculateInSampleSize(int width, int height, int target) {
+        int sampleSize = 1;
+        int shorter = Math.min(width, height);
+        while (shorter / (sampleSize * 2) >= target) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Bitmap centerCropSquare(Bitmap source, int size) {
+        int shorter = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - shorter) / 2;
+        int y = (source.getHeight() - shorter) / 2;
+        Bitmap square = Bitmap.createBitmap(source, x, y, shorter, shorter);
+        if (shorter == size) {
+            return square;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(square, size, size, true);
+        if (square != source && square != scaled) {
+            square.recycle();
+        }
+        return scaled;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+}
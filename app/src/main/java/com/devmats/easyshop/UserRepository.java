@@ -0,0 +1,37 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+
+// Runs user account queries off the main thread
+public class UserRepository {
+
+    private static UserRepository instance;
+    private final DBHelper db;
+    private final DbMetrics metrics;
+
+    private UserRepository(DBHelper db) {
+        this.db = db;
+        this.metrics = db.getMetrics();
+    }
+
+    public static synchronized UserRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserRepository(DBHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    public void insertUser(String username, String email, String password, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(
+                metrics.timed("insertUser", () -> db.insertUser(username, email, password)), false, callback);
+    }
+
+    public void checkUser(String email, String password, DbCallback<Boolean> callback) {
+        AppExecutors.runInBackground(metrics.timed("checkUser", () -> db.checkUser(email, password)),
+                false, callback);
+    }
+
+    public void getUsername(String email, DbCallback<String> callback) {
+        AppExecutors.runInBackground(metrics.timed("getUsername", () -> db.getUsername(email)), callback);
+    }
+}
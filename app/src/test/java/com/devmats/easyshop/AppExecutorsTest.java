@@ -0,0 +1,69 @@
+package com.devmats.easyshop;
+
+import android.database.sqlite.SQLiteException;
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class AppExecutorsTest {
+
+    @Test
+    public void resultIsDeliveredOnTheMainThread() throws InterruptedException {
+        AtomicReference<Thread> deliveredOn = new AtomicReference<>();
+        AtomicReference<String> result = new AtomicReference<>();
+        AppExecutors.runInBackground(() -> "done", value -> {
+            deliveredOn.set(Thread.currentThread());
+            result.set(value);
+        });
+
+        awaitDelivery(result);
+        assertEquals("done", result.get());
+        assertSame(Looper.getMainLooper().getThread(), deliveredOn.get());
+    }
+
+    @Test
+    public void throwingTaskDeliversTheFailureResult() throws InterruptedException {
+        AtomicReference<Boolean> result = new AtomicReference<>();
+        AppExecutors.runInBackground(() -> {
+            throw new SQLiteException("disk I/O error");
+        }, false, result::set);
+
+        awaitDelivery(result);
+        assertFalse(result.get());
+    }
+
+    @Test
+    public void throwingTaskDeliversNullByDefault() throws InterruptedException {
+        AtomicReference<Boolean> called = new AtomicReference<>();
+        AtomicReference<Object> result = new AtomicReference<>("not called");
+        AppExecutors.runInBackground(() -> {
+            throw new IllegalStateException();
+        }, value -> {
+            result.set(value);
+            called.set(true);
+        });
+
+        awaitDelivery(called);
+        assertNull(result.get());
+    }
+
+    // The callback is posted to the paused main looper once the pool thread finishes
+    private static void awaitDelivery(AtomicReference<?> delivered) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (delivered.get() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertNotNull("Callback never ran", delivered.get());
+    }
+}
@@ -0,0 +1,113 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class BarcodeLookupTest {
+
+    private static final String TEST_DB = "barcode-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void findsProductByBarcode() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, null, null, "4006381333931", null, null));
+        assertTrue(dbHelper.insertProduct("Salt", 9, 120, null, null, "96385074", null, null));
+
+        assertEquals("Tea", dbHelper.getProductByBarcode("4006381333931").getName());
+        assertEquals("96385074", dbHelper.getProductByBarcode("96385074").getBarcode());
+        assertNull(dbHelper.getProductByBarcode("0000000000000"));
+        assertNull(dbHelper.getProductByBarcode(""));
+    }
+
+    @Test
+    public void barcodesAreUniqueButOptional() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, null, null, "4006381333931", null, null));
+        assertFalse(dbHelper.insertProduct("Coffee", 2, 900, null, null, "4006381333931", null, null));
+        assertFalse(dbHelper.checkIfProductExists("Coffee"));
+
+        // Any number of products can have no barcode
+        assertTrue(dbHelper.insertProduct("Milk", 5, 300, null, null));
+        assertTrue(dbHelper.insertProduct("Sugar", 8, 120, null, null));
+        assertFalse(dbHelper.updateProduct(2, "Milk", 5, 300, null, null, "4006381333931", null, null));
+
+        // Clearing a barcode frees it for another product
+        assertTrue(dbHelper.updateProduct(1, "Tea", 3, 450, null, null, null, null, null));
+        assertTrue(dbHelper.updateProduct(2, "Milk", 5, 300, null, null, "4006381333931", null, null));
+        assertEquals("Milk", dbHelper.getProductByBarcode("4006381333931").getName());
+    }
+
+    @Test
+    public void repeatedScansBumpTheCartLine() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, null, null, "4006381333931", null, null));
+
+        assertEquals("Tea", dbHelper.addToCartByBarcode("4006381333931").getName());
+        assertNotNull(dbHelper.addToCartByBarcode("4006381333931"));
+        assertNull(dbHelper.addToCartByBarcode("96385074"));
+
+        ArrayList<CartItem> cart = dbHelper.getCartItems();
+        assertEquals(1, cart.size());
+        assertEquals(2, cart.get(0).getQuantity());
+    }
+
+    @Test
+    public void importAssignsAndMergesBarcodes() throws IOException {
+        assertTrue(dbHelper.insertProduct("Rice", 10, 8000, null, null, "5000000000017", null, null));
+
+        File csv = new File(context.getCacheDir(), "barcodes.csv");
+        try (Writer out = new FileWriter(csv)) {
+            out.write("name,units,price,imageUri,category,barcode\n");
+            out.write("Lentils,5,1.20,,Pantry,5000000000024\n");
+            out.write("Rice,25,75,,,\n");
+            // Barcode already taken by Lentils
+            out.write("Beans,4,2,,,5000000000024\n");
+        }
+
+        ProductImporter.Result result = new ProductImporter(context, dbHelper)
+                .importFrom(Uri.fromFile(csv), true, null);
+
+        assertNull(result.error);
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.merged);
+        assertEquals(1, result.skipped);
+        assertEquals("Lentils", dbHelper.getProductByBarcode("5000000000024").getName());
+        // A blank barcode in a merge keeps the one the product had
+        ProductModel rice = dbHelper.getProductByBarcode("5000000000017");
+        assertEquals(25, rice.getUnits());
+    }
+}
@@ -0,0 +1,56 @@
+package com.devmats.easyshop;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BarcodeWedgeDetectorTest {
+
+    private final BarcodeWedgeDetector detector = new BarcodeWedgeDetector();
+
+    @Test
+    public void scannerBurstIsAScan() {
+        long time = type("4006381333931", 1_000, 8);
+        assertEquals("4006381333931", detector.onTerminator(time + 8));
+    }
+
+    @Test
+    public void handTypingIsNotAScan() {
+        long time = type("4006381333931", 1_000, 150);
+        assertNull(detector.onTerminator(time + 150));
+    }
+
+    @Test
+    public void shortBurstIsNotAScan() {
+        long time = type("12", 1_000, 8);
+        assertNull(detector.onTerminator(time + 8));
+    }
+
+    @Test
+    public void pauseStartsANewSequence() {
+        // A stray key long before the scan doesn't end up in front of the code
+        long time = type("x", 1_000, 8);
+        time = type("96385074", time + 2_000, 10);
+        assertEquals("96385074", detector.onTerminator(time + 10));
+        // The terminator consumed the sequence
+        assertNull(detector.onTerminator(time + 20));
+    }
+
+    @Test
+    public void lateTerminatorIsNotAScan() {
+        long time = type("96385074", 1_000, 10);
+        assertNull(detector.onTerminator(time + 500));
+    }
+
+    // Types text one key every gapMillis starting at startMillis; returns the last key's time
+    private long type(String text, long startMillis, long gapMillis) {
+        long time = startMillis;
+        for (int i = 0; i < text.length(); i++) {
+            if (i > 0) {
+                time += gapMillis;
+            }
+            detector.onCharacter(text.charAt(i), time);
+        }
+        return time;
+    }
+}
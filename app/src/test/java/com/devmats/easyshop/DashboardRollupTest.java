@@ -0,0 +1,139 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * The rollups are maintained incrementally; after any mix of writes they must equal a full scan.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DashboardRollupTest {
+
+    private static final String TEST_DB = "dashboard-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void inventoryTotalsFollowEveryWrite() {
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(false);
+        for (int i = 0; i < 2_000; i++) {
+            writer.add("Item " + i, i % 12, 100 + i, null);
+        }
+        writer.finish(true);
+
+        dbHelper.updateProduct(1, "Item 0", 50, 999, null, null);
+        dbHelper.updateProduct(2, "Item 1", 0, 10, null, null);
+        dbHelper.deleteProductById(3);
+        dbHelper.addToCart(10, 2);
+        dbHelper.addToCart(11, 4);
+        assertTrue(dbHelper.checkout().isSuccessful());
+
+        SQLiteDatabase db = dbHelper.openDatabase();
+        DashboardStats stats = dbHelper.getDashboardStats();
+        assertEquals(count(db, "SELECT COUNT(*) FROM products"), stats.productCount);
+        assertEquals(count(db, "SELECT SUM(units) FROM products"), stats.totalUnits);
+        assertEquals(count(db, "SELECT SUM(units * price) FROM products"), stats.stockValue);
+        assertEquals(count(db, "SELECT COUNT(*) FROM products WHERE units < " + DBHelper.LOW_STOCK_THRESHOLD),
+                stats.lowStockCount);
+    }
+
+    @Test
+    public void dailySalesAddUpAcrossCheckouts() {
+        assertTrue(dbHelper.insertProduct("Rice", 100, 8000, null, null));
+        assertTrue(dbHelper.insertProduct("Salt", 100, 150, null, null));
+
+        for (int i = 0; i < 3; i++) {
+            dbHelper.addToCart(1, 2);
+            dbHelper.addToCart(2, 1);
+            assertTrue(dbHelper.checkout().isSuccessful());
+        }
+        // A failed checkout must not touch the rollups
+        dbHelper.addToCart(2, 1_000);
+        assertFalse(dbHelper.checkout().isSuccessful());
+
+        DashboardStats stats = dbHelper.getDashboardStats();
+        assertEquals(3, stats.salesToday);
+        assertEquals(3 * (2 * 8000 + 150), stats.revenueToday);
+        assertEquals(stats.revenueToday, stats.revenueLast7Days);
+        assertEquals(count(dbHelper.openDatabase(), "SELECT SUM(total) FROM sales"), stats.revenueToday);
+        assertEquals("Rice", stats.topSellersToday.get(0).name);
+        assertEquals(6, stats.topSellersToday.get(0).quantity);
+    }
+
+    // The v8 seed must put each past sale on the day checkout would have: 23:30 local on a
+    // winter and a summer date lands on the wrong day if one UTC offset is used for both
+    @Test
+    public void seededRollupsUseEachSalesOwnOffset() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            long winter = Instant.parse("2024-01-16T04:30:00Z").toEpochMilli();   // Jan 15, 23:30 EST
+            long summer = Instant.parse("2024-07-16T03:30:00Z").toEpochMilli();   // Jul 15, 23:30 EDT
+            assertEquals(LocalDate.of(2024, 1, 15).toEpochDay(), DBHelper.dayOf(winter));
+            assertEquals(LocalDate.of(2024, 7, 15).toEpochDay(), DBHelper.dayOf(summer));
+
+            SQLiteDatabase db = dbHelper.openDatabase();
+            db.execSQL("INSERT INTO sales (id, timestamp, total, item_count) VALUES (1, " + winter + ", 500, 2)");
+            db.execSQL("INSERT INTO sales (id, timestamp, total, item_count) VALUES (2, " + summer + ", 300, 1)");
+            db.execSQL("INSERT INTO sale_items (sale_id, product_id, name, quantity, unit_price) VALUES (1, 7, 'Tea', 2, 250)");
+            db.execSQL("INSERT INTO sale_items (sale_id, product_id, name, quantity, unit_price) VALUES (2, 7, 'Green Tea', 1, 300)");
+
+            db.beginTransaction();
+            try {
+                db.execSQL("DELETE FROM daily_sales");
+                db.execSQL("DELETE FROM daily_product_sales");
+                dbHelper.createMigrationRunner().run(db, 7, 8);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            assertEquals(500, count(db, "SELECT revenue FROM daily_sales WHERE day = " + DBHelper.dayOf(winter)));
+            assertEquals(300, count(db, "SELECT revenue FROM daily_sales WHERE day = " + DBHelper.dayOf(summer)));
+            assertEquals(2, count(db, "SELECT COUNT(*) FROM daily_sales"));
+            assertEquals(2, count(db, "SELECT quantity FROM daily_product_sales WHERE day = " + DBHelper.dayOf(winter)
+                    + " AND product_id = 7"));
+            assertEquals("Green Tea", DatabaseUtils.stringForQuery(db, "SELECT name FROM daily_product_sales"
+                    + " WHERE day = " + DBHelper.dayOf(summer), null));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        return DatabaseUtils.longForQuery(db, sql, null);
+    }
+}
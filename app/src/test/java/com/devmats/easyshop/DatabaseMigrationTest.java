@@ -0,0 +1,174 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a seeded version 1 database through every migration step and checks nothing is lost.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseMigrationTest {
+
+    private static final String TEST_DB = "migration-test.db";
+    private static final int SEEDED_PRODUCTS = 100_000;
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void upgradeFromV1KeepsAllRows() {
+        seedVersion1Database();
+
+        dbHelper = new DBHelper(context, TEST_DB);
+        SQLiteDatabase db = dbHelper.openDatabase();
+
+        assertEquals(SEEDED_PRODUCTS, count(db, "SELECT COUNT(*) FROM products"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM users"));
+        // Case-only duplicate seeded at the end was renamed rather than dropped
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM products WHERE name = 'PRODUCT 1 (" + SEEDED_PRODUCTS + ")'"));
+        // TEXT prices/units became integer minor units and counts
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM products WHERE name = 'Product 1' AND units = 1 AND price = 150"));
+        assertTrue(dbHelper.checkIfProductExists("PRODUCT 42"));
+        assertEquals("Product 4242", dbHelper.searchProducts("Product 4242", 10).get(0).getName());
+        // v5 adds the thumbnail column empty; rows without an image are never backfilled
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM products WHERE thumbnailPath IS NOT NULL"));
+        assertTrue(dbHelper.getProductsMissingThumbnails(0, 10).isEmpty());
+        // v6: the plaintext password still works once, and is replaced by a hash on that login
+        dbHelper.setPasswordHasher(new PasswordHasher(1_000));
+        assertFalse(dbHelper.checkUser("owner@shop.test", "wrong"));
+        assertTrue(dbHelper.checkUser("owner@shop.test", "secret"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM users WHERE password = '' AND iterations = 1000"));
+        assertTrue(dbHelper.checkUser("owner@shop.test", "secret"));
+        // v8 seeds the inventory rollup from the existing catalog
+        assertEquals(SEEDED_PRODUCTS, dbHelper.getDashboardStats().productCount);
+        // v10 adds categories and tags empty; existing products start uncategorised
+        assertTrue(dbHelper.getCatalogFacets(10).categories.isEmpty());
+        assertTrue(dbHelper.updateProduct(1, "Product 1", 1, 150, null, null, null, "Fruit", null));
+        assertEquals(1, dbHelper.getCatalogFacets(10).categories.get(0).productCount);
+        // v11 adds barcodes empty; any number of products may have none
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM products WHERE barcode IS NOT NULL"));
+        assertTrue(dbHelper.updateProduct(2, "Product 2", 2, 250, null, null, "4006381333931", null, null));
+        assertEquals("Product 2", dbHelper.getProductByBarcode("4006381333931").getName());
+        // v12 narrows the search triggers to name changes
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger'"
+                + " AND sql LIKE '%UPDATE OF name ON%'"));
+        // Every step's timing outlives the upgrade, for the diagnostics screen
+        Map<String, Long> timings = dbHelper.getMetrics().getMigrationTimings();
+        assertEquals(11, timings.size());
+        assertTrue(timings.containsKey("v1->v2"));
+        assertTrue(timings.containsKey("v11->v12"));
+    }
+
+    @Test
+    public void runnerTimesEveryStep() {
+        seedVersion1Database();
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(context.getDatabasePath(TEST_DB).getPath(),
+                null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            MigrationRunner runner = new DBHelper(context, TEST_DB).createMigrationRunner();
+            db.beginTransaction();
+            try {
+                runner.run(db, 1, 3);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Map<String, Long> timings = runner.getLastRunTimings();
+            assertEquals(2, timings.size());
+            assertTrue(timings.containsKey("v1->v2"));
+            assertTrue(timings.containsKey("v2->v3"));
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missingStepFailsInsteadOfDroppingTables() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            new MigrationRunner(Collections.emptyList()).run(db, 1, 2);
+        } finally {
+            db.close();
+        }
+    }
+
+    // Recreates the original version 1 schema exactly as the first release shipped it
+    private void seedVersion1Database() {
+        File path = context.getDatabasePath(TEST_DB);
+        path.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(path, null);
+        try {
+            db.execSQL("CREATE TABLE users(id INTEGER PRIMARY KEY AUTOINCREMENT,username TEXT NOT NULL,"
+                    + "email TEXT UNIQUE NOT NULL,password TEXT NOT NULL)");
+            db.execSQL("CREATE TABLE products(id INTEGER PRIMARY KEY AUTOINCREMENT,name TEXT UNIQUE NOT NULL,"
+                    + "units TEXT NOT NULL,price TEXT NOT NULL,imageUri TEXT)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_email ON users (email)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_product_name ON products (name)");
+
+            db.beginTransaction();
+            try {
+                db.execSQL("INSERT INTO users(username, email, password) VALUES('owner', 'owner@shop.test', 'secret')");
+                SQLiteStatement insert = db.compileStatement(
+                        "INSERT INTO products(name, units, price, imageUri) VALUES(?, ?, ?, NULL)");
+                for (int i = 1; i < SEEDED_PRODUCTS; i++) {
+                    insert.bindString(1, "Product " + i);
+                    insert.bindString(2, String.valueOf(i % 50));
+                    insert.bindString(3, (i % 900) + ".50");
+                    insert.executeInsert();
+                }
+                insert.bindString(1, "PRODUCT 1");
+                insert.bindString(2, "1");
+                insert.bindString(3, "1");
+                insert.executeInsert();
+                insert.close();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DbMetricsTest {
+
+    private static final String TEST_DB = "metrics-test.db";
+
+    @Test
+    public void percentilesStayWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertInRange(histogram.getPercentileMicros(50), 50_000, 60_000);
+        assertInRange(histogram.getPercentileMicros(95), 95_000, 100_000);
+        assertEquals(100_000, histogram.getPercentileMicros(100));
+        assertEquals(0, new LatencyHistogram().getPercentileMicros(99));
+    }
+
+    @Test
+    public void timedCallsRecordRowsAndSlowCalls() throws Exception {
+        DbMetrics metrics = new DbMetrics();
+
+        ArrayList<String> rows = metrics.timed("getProductPage", () -> new ArrayList<>(Arrays.asList("a", "b", "c"))).call();
+        metrics.record("checkout", 80_000_000L, -1);
+
+        assertEquals(3, rows.size());
+        DbMetrics.OperationStats page = metrics.getStats("getProductPage");
+        assertEquals(1, page.latency.getCount());
+        assertEquals(3, page.rows);
+        assertEquals(1, metrics.getSlowQueryCount());
+
+        StringBuilder report = new StringBuilder();
+        metrics.appendReport(report);
+        assertTrue(report.toString(), report.toString().contains("checkout 80 ms"));
+    }
+
+    @Test
+    public void databaseAccessOnMainThreadIsCounted() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        DBHelper dbHelper = new DBHelper(context, TEST_DB);
+        try {
+            // Robolectric runs tests on the main looper thread
+            dbHelper.getProductPage(0, true, 10);
+
+            // Only debug builds pay for the stack walk that names the caller
+            DbMetrics.OperationStats stats = dbHelper.getMetrics()
+                    .getStats(BuildConfig.DEBUG ? "getProductPage" : "(main thread)");
+            assertNotNull(stats);
+            assertTrue(stats.mainThreadCalls > 0);
+        } finally {
+            dbHelper.close();
+            context.deleteDatabase(TEST_DB);
+        }
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
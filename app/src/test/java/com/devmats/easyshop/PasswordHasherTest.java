@@ -0,0 +1,52 @@
+package com.devmats.easyshop;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PasswordHasherTest {
+
+    // Keeps the correctness tests fast; production uses DEFAULT_ITERATIONS
+    private final PasswordHasher hasher = new PasswordHasher(1_000);
+
+    @Test
+    public void verifiesOnlyTheRightPassword() {
+        byte[] salt = hasher.newSalt();
+        byte[] hash = hasher.hash("correct horse", salt);
+
+        assertTrue(PasswordHasher.verify("correct horse", salt, 1_000, hash));
+        assertFalse(PasswordHasher.verify("correct hors", salt, 1_000, hash));
+        assertFalse(PasswordHasher.verify("correct horse", salt, 1_001, hash));
+    }
+
+    @Test
+    public void saltsAreUniquePerUser() {
+        byte[] first = hasher.newSalt();
+        byte[] second = hasher.newSalt();
+
+        assertEquals(PasswordHasher.SALT_BYTES, first.length);
+        assertFalse(java.util.Arrays.equals(first, second));
+        assertFalse(java.util.Arrays.equals(hasher.hash("same", first), hasher.hash("same", second)));
+    }
+
+    @Test
+    public void weakerHashesAreRehashed() {
+        assertTrue(hasher.needsRehash(0));
+        assertTrue(hasher.needsRehash(999));
+        assertFalse(hasher.needsRehash(1_000));
+    }
+
+    // Latency is measured on a device by PasswordHasherBenchmark; here only the result's shape
+    // is checked, with a tiny target so the test stays fast
+    @Test
+    public void calibratedIterationsRespectTheFloorAndRoundTrip() {
+        int iterations = PasswordHasher.calibrateIterations(1);
+        assertTrue(iterations >= PasswordHasher.MIN_CALIBRATED_ITERATIONS);
+
+        PasswordHasher calibrated = new PasswordHasher(iterations);
+        byte[] salt = calibrated.newSalt();
+        byte[] hash = calibrated.hash("correct horse", salt);
+        assertTrue(PasswordHasher.verify("correct horse", salt, iterations, hash));
+        assertFalse(PasswordHasher.verify("correct horse", salt, iterations - 1, hash));
+    }
+}
@@ -0,0 +1,86 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class PriceRangeQueryTest {
+
+    private static final String TEST_DB = "price-range-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        // Only 50 distinct prices, so pages often end in the middle of a run of equal prices
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(false);
+        for (int i = 0; i < 2_000; i++) {
+            writer.add("Item " + i, i % 7, (i * 37 % 50) * 100L, null);
+        }
+        writer.finish(true);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void pagesMatchAScan() {
+        long minPrice = 1_000;
+        long maxPrice = 3_000;
+        ArrayList<Long> paged = new ArrayList<>();
+        long afterPrice = minPrice;
+        long afterId = 0;
+        ArrayList<ProductModel> page;
+        do {
+            page = dbHelper.getProductsByPriceRange(minPrice, maxPrice, afterPrice, afterId, 13);
+            for (ProductModel product : page) {
+                paged.add((long) product.getId());
+                afterPrice = product.getPrice();
+                afterId = product.getId();
+            }
+        } while (page.size() == 13);
+
+        ArrayList<Long> expected = new ArrayList<>();
+        try (Cursor cursor = dbHelper.openDatabase().rawQuery("SELECT id FROM products WHERE price BETWEEN "
+                + minPrice + " AND " + maxPrice + " ORDER BY price, id", null)) {
+            while (cursor.moveToNext()) {
+                expected.add(cursor.getLong(0));
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void cursorBelowTheRangeStartsAtMinPrice() {
+        ArrayList<ProductModel> page = dbHelper.getProductsByPriceRange(2_000, 2_000, 0, 0, 1_000);
+
+        assertEquals(40, page.size());
+        for (ProductModel product : page) {
+            assertEquals(2_000, product.getPrice());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.devmats.easyshop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class ProductCacheTest {
+
+    @Test
+    public void evictsTheLeastRecentlyUsedProduct() {
+        ProductCache cache = new ProductCache(3);
+        cache.put(product(1, "Tea"));
+        cache.put(product(2, "Coffee"));
+        cache.put(product(3, "Milk"));
+        // Touching 1 makes 2 the eldest
+        assertNotNull(cache.get(1));
+        cache.put(product(4, "Sugar"));
+
+        assertEquals(3, cache.size());
+        assertNull(cache.peek(2));
+        assertNotNull(cache.peek(1));
+        // The evicted product's name goes with it
+        assertNull(cache.containsName("Coffee"));
+        assertEquals(Boolean.TRUE, cache.containsName("Sugar"));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        ProductCache cache = new ProductCache(10);
+        cache.put(product(1, "Tea"));
+
+        cache.get(1);
+        cache.get(2);
+        cache.containsName("tea");
+        cache.containsName("Salt");
+        cache.putNameLookup("Salt", false);
+        assertEquals(Boolean.FALSE, cache.containsName("SALT"));
+        // peek() is bookkeeping and doesn't count
+        cache.peek(1);
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void pagesReadBeforeAWriteAreNotCached() {
+        ProductCache cache = new ProductCache(10);
+        ArrayList<ProductModel> page = new ArrayList<>(Arrays.asList(product(1, "Tea"), product(2, "Coffee")));
+
+        long staleVersion = cache.getVersion();
+        cache.invalidatePages();
+        cache.putPage(0, true, 2, page, staleVersion);
+        assertNull(cache.getPage(0, true, 2));
+
+        cache.putPage(0, true, 2, page, cache.getVersion());
+        assertEquals(page, cache.getPage(0, true, 2));
+        // Other shapes of the same page are separate entries
+        assertNull(cache.getPage(0, true, 3));
+
+        cache.invalidatePages();
+        assertNull(cache.getPage(0, true, 2));
+    }
+
+    @Test
+    public void rowsReadBeforeAWriteAreNotCached() {
+        ProductCache cache = new ProductCache(10);
+
+        long staleVersion = cache.getVersion();
+        cache.invalidatePages();
+        cache.put(product(1, "Tea"), staleVersion);
+        assertNull(cache.get(1));
+
+        cache.put(product(1, "Tea"), cache.getVersion());
+        assertEquals("Tea", cache.get(1).getName());
+    }
+
+    @Test
+    public void pageWithAnEvictedRowIsAMiss() {
+        ProductCache cache = new ProductCache(10);
+        cache.putPage(0, true, 2, new ArrayList<>(Arrays.asList(product(1, "Tea"), product(2, "Coffee"))),
+                cache.getVersion());
+        cache.remove(2);
+
+        assertNull(cache.getPage(0, true, 2));
+    }
+
+    @Test
+    public void removeForgetsTheName() {
+        ProductCache cache = new ProductCache(10);
+        cache.put(product(1, "Tea"));
+        cache.remove(1);
+        assertNull(cache.containsName("Tea"));
+
+        // A rename frees the old name
+        cache.put(product(2, "Coffee"));
+        cache.put(product(2, "Espresso"));
+        assertNull(cache.containsName("coffee"));
+        assertEquals(Boolean.TRUE, cache.containsName("ESPRESSO"));
+
+        // Removing a row the cache never held can't say which name went, so all lookups go
+        cache.putNameLookup("Salt", true);
+        cache.remove(99);
+        assertNull(cache.containsName("Salt"));
+    }
+
+    @Test
+    public void namesFoldLikeSqliteNocase() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            ProductCache cache = new ProductCache(10);
+            cache.put(product(1, "title"));
+            cache.put(product(2, "äpfel"));
+
+            // Dotted capital I would break a locale-sensitive fold
+            assertEquals(Boolean.TRUE, cache.containsName("TITLE"));
+            // NOCASE leaves non-ASCII letters alone, so the database accepts "Äpfel" as a new name
+            assertEquals(Boolean.TRUE, cache.containsName("äpfel"));
+            assertNull(cache.containsName("Äpfel"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static ProductModel product(int id, String name) {
+        return new ProductModel(id, name, 1, 100, null, null);
+    }
+}
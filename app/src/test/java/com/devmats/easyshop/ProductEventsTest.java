@@ -0,0 +1,109 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductEventsTest {
+
+    private static final String TEST_DB = "events-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+    private final List<String> events = new ArrayList<>();
+    private ProductModel lastProduct;
+
+    private final ProductEvents.Listener recorder = new ProductEvents.Listener() {
+        @Override
+        public void onProductInserted(ProductModel product) {
+            events.add("inserted " + product.getId());
+            lastProduct = product;
+        }
+
+        @Override
+        public void onProductUpdated(ProductModel product) {
+            events.add("updated " + product.getId());
+            lastProduct = product;
+        }
+
+        @Override
+        public void onProductDeleted(int productId) {
+            events.add("deleted " + productId);
+        }
+
+        @Override
+        public void onProductsChanged() {
+            events.add("changed");
+        }
+    };
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        dbHelper.getProductEvents().addListener(recorder);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.getProductEvents().removeListener(recorder);
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void everyWritePublishesOneEvent() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, "content://images/tea", null));
+        int id = lastProduct.getId();
+
+        // Editing without a new image must still report the stored image
+        dbHelper.getProductCache().clear();
+        assertTrue(dbHelper.updateProduct(id, "Green Tea", 4, 500, null, null));
+        assertEquals("Green Tea", lastProduct.getName());
+        assertEquals("content://images/tea", lastProduct.getImageUri());
+
+        dbHelper.deleteProductById(id);
+
+        assertEquals(List.of("inserted " + id, "updated " + id, "deleted " + id), events);
+    }
+
+    @Test
+    public void failedWritesPublishNothing() {
+        assertTrue(dbHelper.insertProduct("Salt", 1, 100, null, null));
+        events.clear();
+
+        assertFalse(dbHelper.insertProduct("SALT", 1, 100, null, null));
+        assertFalse(dbHelper.updateProduct(9999, "Pepper", 1, 100, null, null));
+        dbHelper.deleteProductById(9999);
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void bulkImportPublishesSingleChange() {
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(false);
+        for (int i = 0; i < 1200; i++) {
+            writer.add("Bulk " + i, 1, 100, null);
+        }
+        writer.finish(true);
+
+        assertEquals(List.of("changed"), events);
+    }
+}
@@ -0,0 +1,213 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Facet counts are maintained by triggers and must always equal a GROUP BY over the catalog;
+ * filtered pages must return exactly what a plain scan would, in the same order.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductFacetTest {
+
+    private static final String TEST_DB = "facet-test.db";
+    private static final String[] CATEGORIES = {"Drinks", "Bakery", "Dairy", "Produce"};
+    private static final String[] TAGS = {"organic", "local", "vegan"};
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void countsFollowEveryWrite() {
+        seedCatalog(300);
+
+        // Move between categories, sell out, restock, retag, clear, delete
+        assertTrue(dbHelper.updateProduct(1, "Item 0", 0, 100, null, null, null, "Bakery", Arrays.asList("local")));
+        assertTrue(dbHelper.updateProduct(2, "Item 1", 9, 100, null, null, null, null, null));
+        assertTrue(dbHelper.updateProduct(3, "Item 2", 0, 100, null, null));
+        assertTrue(dbHelper.updateProduct(4, "Item 3", 40, 100, null, null));
+        dbHelper.deleteProductById(5);
+        dbHelper.deleteProductById(6);
+        // Checkout sells the last units of one product
+        dbHelper.updateProduct(10, "Item 9", 2, 100, null, null);
+        dbHelper.addToCart(10, 2);
+        dbHelper.addToCart(11, 1);
+        assertTrue(dbHelper.checkout().isSuccessful());
+        // Bulk import assigns and reassigns categories by name
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(true);
+        writer.add("Imported", 3, 250, null, "drinks", null);
+        writer.add("Item 20", 0, 250, null, "Frozen", null);
+        writer.finish(true);
+
+        assertCountsMatchScan();
+    }
+
+    @Test
+    public void categoryNamesAreCaseInsensitive() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, null, null, null, "Drinks", Arrays.asList("Organic", "organic")));
+        assertTrue(dbHelper.insertProduct("Milk", 0, 300, null, null, null, "DRINKS", null));
+
+        CatalogFacets facets = dbHelper.getCatalogFacets(10);
+        assertEquals(1, facets.categories.size());
+        assertEquals(2, facets.categories.get(0).productCount);
+        assertEquals(1, facets.categories.get(0).inStockCount);
+        assertEquals(1, facets.tags.size());
+        assertEquals(1, facets.tags.get(0).productCount);
+        assertEquals("Drinks", dbHelper.getProductCategory(1));
+        assertEquals(Collections.singletonList("Organic"), dbHelper.getProductTags(1));
+        assertNull(dbHelper.getProductCategory(2));
+    }
+
+    @Test
+    public void filteredPagesMatchAScan() {
+        seedCatalog(2_000);
+        long drinks = facetId(dbHelper.getCatalogFacets(10).categories, "Drinks");
+        long organic = facetId(dbHelper.getCatalogFacets(10).tags, "organic");
+
+        assertPagesMatch(ProductFilter.NONE.withCategory(drinks),
+                "category_id = " + drinks);
+        assertPagesMatch(ProductFilter.NONE.withTag(organic),
+                "id IN (SELECT product_id FROM product_tags WHERE tag_id = " + organic + ")");
+        assertPagesMatch(ProductFilter.NONE.withCategory(drinks).withTag(organic),
+                "category_id = " + drinks + " AND id IN (SELECT product_id FROM product_tags WHERE tag_id = " + organic + ")");
+        assertPagesMatch(ProductFilter.NONE.withCategory(drinks).withPriceRange(200, 600).withInStockOnly(true),
+                "category_id = " + drinks + " AND price BETWEEN 200 AND 600 AND units > 0");
+        assertPagesMatch(ProductFilter.NONE.withTag(organic).withInStockOnly(true),
+                "id IN (SELECT product_id FROM product_tags WHERE tag_id = " + organic + ") AND units > 0");
+        assertPagesMatch(ProductFilter.NONE.withPriceRange(0, 99), "price BETWEEN 0 AND 99");
+    }
+
+    @Test
+    public void pagingBackwardsReturnsAscendingRows() {
+        seedCatalog(500);
+        long dairy = facetId(dbHelper.getCatalogFacets(10).categories, "Dairy");
+        ProductFilter filter = ProductFilter.NONE.withCategory(dairy);
+
+        ArrayList<ProductModel> page = dbHelper.getFilteredProductPage(filter, Long.MAX_VALUE, false, 10);
+        ArrayList<Long> expected = ids("SELECT id FROM (SELECT id FROM products WHERE category_id = " + dairy
+                + " ORDER BY id DESC LIMIT 10) ORDER BY id");
+        assertEquals(expected, idsOf(page));
+    }
+
+    // Every fourth product per category, every third tagged organic, every fifth local and
+    // vegan; units and prices vary so the stock and price filters cut across the facets
+    private void seedCatalog(int products) {
+        for (int i = 0; i < products; i++) {
+            ArrayList<String> tags = new ArrayList<>();
+            if (i % 3 == 0) {
+                tags.add(TAGS[0]);
+            }
+            if (i % 5 == 0) {
+                tags.add(TAGS[1]);
+                tags.add(TAGS[2]);
+            }
+            assertTrue(dbHelper.insertProduct("Item " + i, i % 7, 50 + (i * 37) % 900, null, null, null,
+                    i % 10 == 9 ? null : CATEGORIES[i % CATEGORIES.length], tags));
+        }
+    }
+
+    private void assertCountsMatchScan() {
+        SQLiteDatabase db = dbHelper.openDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT c.name, c.product_count, c.in_stock_count,"
+                + " (SELECT COUNT(*) FROM products p WHERE p.category_id = c.id),"
+                + " (SELECT COUNT(*) FROM products p WHERE p.category_id = c.id AND p.units > 0)"
+                + " FROM categories c", null)) {
+            assertTrue(cursor.getCount() >= CATEGORIES.length);
+            while (cursor.moveToNext()) {
+                assertEquals(cursor.getString(0), cursor.getInt(3), cursor.getInt(1));
+                assertEquals(cursor.getString(0), cursor.getInt(4), cursor.getInt(2));
+            }
+        }
+        try (Cursor cursor = db.rawQuery("SELECT t.name, t.product_count, t.in_stock_count,"
+                + " (SELECT COUNT(*) FROM product_tags pt WHERE pt.tag_id = t.id),"
+                + " (SELECT COUNT(*) FROM product_tags pt JOIN products p ON p.id = pt.product_id"
+                + " WHERE pt.tag_id = t.id AND p.units > 0)"
+                + " FROM tags t", null)) {
+            assertEquals(TAGS.length, cursor.getCount());
+            while (cursor.moveToNext()) {
+                assertEquals(cursor.getString(0), cursor.getInt(3), cursor.getInt(1));
+                assertEquals(cursor.getString(0), cursor.getInt(4), cursor.getInt(2));
+            }
+        }
+        // Deleted products leave no tag links behind
+        assertEquals(0, DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM product_tags"
+                + " WHERE product_id NOT IN (SELECT id FROM products)", null));
+    }
+
+    // Pages through the filter 60 rows at a time and compares with the same rows from a scan
+    private void assertPagesMatch(ProductFilter filter, String where) {
+        ArrayList<Long> paged = new ArrayList<>();
+        long anchor = 0;
+        while (true) {
+            ArrayList<ProductModel> page = dbHelper.getFilteredProductPage(filter, anchor, true, ProductPager.PAGE_SIZE);
+            paged.addAll(idsOf(page));
+            if (page.size() < ProductPager.PAGE_SIZE) {
+                break;
+            }
+            anchor = page.get(page.size() - 1).getId();
+        }
+        ArrayList<Long> expected = ids("SELECT id FROM products WHERE " + where + " ORDER BY id");
+        assertFalse(where, expected.isEmpty());
+        assertEquals(where, expected, paged);
+    }
+
+    private ArrayList<Long> ids(String sql) {
+        ArrayList<Long> ids = new ArrayList<>();
+        try (Cursor cursor = dbHelper.openDatabase().rawQuery(sql, null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    private static ArrayList<Long> idsOf(ArrayList<ProductModel> products) {
+        ArrayList<Long> ids = new ArrayList<>();
+        for (ProductModel product : products) {
+            ids.add((long) product.getId());
+        }
+        return ids;
+    }
+
+    private static long facetId(ArrayList<CatalogFacets.Facet> facets, String name) {
+        for (CatalogFacets.Facet facet : facets) {
+            if (facet.name.equals(name)) {
+                return facet.id;
+            }
+        }
+        throw new AssertionError("No facet " + name);
+    }
+}
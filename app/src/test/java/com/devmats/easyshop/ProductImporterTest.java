@@ -0,0 +1,136 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductImporterTest {
+
+    private static final String TEST_DB = "import-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+    private ProductImporter importer;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        importer = new ProductImporter(context, dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void importsLargeCsvAndSkipsDuplicates() throws IOException {
+        File csv = new File(context.getCacheDir(), "catalog.csv");
+        try (Writer out = new FileWriter(csv)) {
+            out.write("name,units,price,imageUri\n");
+            for (int i = 0; i < 50_000; i++) {
+                out.write("Item " + i + "," + (i % 20) + "," + (i % 500) + ".25,\n");
+            }
+            out.write("ITEM 7,1,1,\n");
+        }
+
+        long start = System.nanoTime();
+        ProductImporter.Result result = importer.importFrom(Uri.fromFile(csv), false, null);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNull(result.error);
+        assertEquals(50_000, result.inserted);
+        assertEquals(1, result.skipped);
+        assertTrue("Import took " + elapsedMs + " ms", elapsedMs < 30_000);
+        assertTrue(dbHelper.checkIfProductExists("item 49999"));
+    }
+
+    @Test
+    public void jsonImportMergesDuplicates() throws IOException {
+        assertTrue(dbHelper.insertProduct("Rice", 10, 8000, null, null));
+
+        File json = new File(context.getCacheDir(), "catalog.json");
+        try (Writer out = new FileWriter(json)) {
+            out.write("[{\"name\": \"rice\", \"units\": 25, \"price\": \"75\"},"
+                    + " {\"name\": \"Lentils\", \"units\": \"5\", \"price\": \"120\", \"imageUri\": null}]");
+        }
+
+        ProductImporter.Result result = importer.importFrom(Uri.fromFile(json), true, null);
+
+        assertNull(result.error);
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.merged);
+        ProductModel rice = dbHelper.getProductPage(0, true, 10).get(0);
+        assertEquals(25, rice.getUnits());
+        assertEquals(7500, rice.getPrice());
+    }
+
+    // Imports share one importer and run on the disk pool, so they may overlap
+    @Test
+    public void overlappingImportsKeepTheirOwnCounts() throws Exception {
+        Uri first = writeCsv("first.csv", "A", 3_000, 7);
+        Uri second = writeCsv("second.csv", "B", 3_000, 3);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ProductImporter.Result> a = pool.submit(() -> importer.importFrom(first, false, null));
+            Future<ProductImporter.Result> b = pool.submit(() -> importer.importFrom(second, false, null));
+
+            assertEquals(3_000, a.get(60, TimeUnit.SECONDS).inserted);
+            assertEquals(7, a.get().skipped);
+            assertEquals(3_000, b.get(60, TimeUnit.SECONDS).inserted);
+            assertEquals(3, b.get().skipped);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void csvLineHandlesQuotedCommas() {
+        assertEquals(Arrays.asList("Tea, green", "3", "4.5", ""),
+                ProductImporter.parseCsvLine("\"Tea, green\",3,4.5,"));
+        assertEquals(Arrays.asList("12\" pan", "1", "9"),
+                ProductImporter.parseCsvLine("\"12\"\" pan\",1,9"));
+    }
+
+    // Valid rows named "<prefix> <i>", then rows with no price
+    private Uri writeCsv(String fileName, String prefix, int valid, int invalid) throws IOException {
+        File csv = new File(context.getCacheDir(), fileName);
+        try (Writer out = new FileWriter(csv)) {
+            for (int i = 0; i < valid; i++) {
+                out.write(prefix + " " + i + ",1,2.50,\n");
+            }
+            for (int i = 0; i < invalid; i++) {
+                out.write(prefix + " broken " + i + ",1,,\n");
+            }
+        }
+        return Uri.fromFile(csv);
+    }
+}
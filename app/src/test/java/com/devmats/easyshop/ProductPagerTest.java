@@ -0,0 +1,180 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductPagerTest {
+
+    private static final String TEST_DB = "pager-test.db";
+    private static final int PAGE = ProductPager.PAGE_SIZE;
+
+    private Context context;
+    private DBHelper dbHelper;
+    private ProductPager pager;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        pager = new ProductPager(new ProductRepository(context, dbHelper));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        settle();
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void appendsPagesInIdOrder() throws Exception {
+        seed(1_000);
+        pager.refresh();
+        settle();
+        assertIds(1, PAGE);
+
+        pager.loadNext();
+        settle();
+        assertIds(1, 2 * PAGE);
+        assertFalse(pager.hasMoreBefore());
+        assertTrue(pager.hasMoreAfter());
+    }
+
+    @Test
+    public void dropsTheOldestPageWhenTheWindowIsFull() throws Exception {
+        seed(1_000);
+        pager.refresh();
+        settle();
+        for (int i = 1; i <= ProductPager.MAX_PAGES_IN_MEMORY; i++) {
+            pager.loadNext();
+            settle();
+        }
+
+        // Six pages read, five kept
+        assertIds(PAGE + 1, ProductPager.MAX_PAGES_IN_MEMORY * PAGE);
+        assertTrue(pager.hasMoreBefore());
+    }
+
+    @Test
+    public void scrollingBackReloadsTheDroppedPage() throws Exception {
+        seed(1_000);
+        pager.refresh();
+        settle();
+        for (int i = 1; i <= ProductPager.MAX_PAGES_IN_MEMORY; i++) {
+            pager.loadNext();
+            settle();
+        }
+
+        pager.loadPrevious();
+        settle();
+
+        // Back at the top, and the page at the far end made room for it
+        assertIds(1, ProductPager.MAX_PAGES_IN_MEMORY * PAGE);
+        assertTrue(pager.hasMoreAfter());
+        // A full page can't tell it was the first; the next read comes back empty and says so
+        pager.loadPrevious();
+        settle();
+        assertFalse(pager.hasMoreBefore());
+        assertIds(1, ProductPager.MAX_PAGES_IN_MEMORY * PAGE);
+    }
+
+    @Test
+    public void stopsAtTheEndOfTheCatalog() throws Exception {
+        seed(2 * PAGE + 10);
+        pager.refresh();
+        settle();
+        pager.loadNext();
+        settle();
+        pager.loadNext();
+        settle();
+
+        assertIds(1, 2 * PAGE + 10);
+        assertFalse(pager.hasMoreAfter());
+        // Nothing left to load, so no request is made
+        pager.loadNext();
+        assertFalse(pager.isLoading());
+    }
+
+    @Test
+    public void ignoresAPageThatArrivesAfterARefresh() throws Exception {
+        seed(1_000);
+        pager.refresh();
+        settle();
+
+        // The second page is still in flight when the window is reset
+        pager.loadNext();
+        assertTrue(pager.isLoading());
+        pager.refresh();
+        settle();
+
+        assertIds(1, PAGE);
+        assertFalse(pager.isLoading());
+    }
+
+    private void seed(int products) {
+        DBHelper.ProductBulkWriter writer = dbHelper.openProductBulkWriter(false);
+        for (int i = 0; i < products; i++) {
+            writer.add("Item " + i, 1, 100, null);
+        }
+        writer.finish(true);
+        dbHelper.getProductCache().clear();
+    }
+
+    // The window holds exactly ids first .. first + count - 1
+    private void assertIds(int first, int count) {
+        ArrayList<ProductModel> items = pager.getItems();
+        assertEquals(count, items.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(first + i, items.get(i).getId());
+        }
+    }
+
+    // Waits until every queued disk task has finished, then runs the callbacks they posted.
+    // Callbacks can queue more work, so this repeats until the main looper has nothing left.
+    private static void settle() throws Exception {
+        ShadowLooper mainLooper = shadowOf(Looper.getMainLooper());
+        while (true) {
+            awaitDiskIO();
+            if (mainLooper.isIdle()) {
+                return;
+            }
+            mainLooper.idle();
+        }
+    }
+
+    // Parks every pool thread on a barrier; they can only all get there once the tasks queued
+    // ahead of them are done
+    private static void awaitDiskIO() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(AppExecutors.DISK_IO_THREADS);
+        ArrayList<Future<?>> parked = new ArrayList<>();
+        for (int i = 0; i < AppExecutors.DISK_IO_THREADS; i++) {
+            parked.add(AppExecutors.diskIO().submit(() -> barrier.await(5, TimeUnit.SECONDS)));
+        }
+        for (Future<?> future : parked) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductRowMapperTest {
+
+    private static final String TEST_DB = "mapper-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void mapsColumnsByNameNotPosition() {
+        assertTrue(dbHelper.insertProduct("Tea", 3, 450, "content://images/tea", "/thumbs/tea.webp"));
+
+        // Columns deliberately out of the usual order
+        try (Cursor cursor = dbHelper.openDatabase().rawQuery(
+                "SELECT thumbnailPath, barcode, price, imageUri, name, id, units FROM products", null)) {
+            ArrayList<ProductModel> products = new ArrayList<>();
+            new ProductRowMapper(cursor, null).mapAll(cursor, products);
+
+            assertEquals(1, products.size());
+            ProductModel tea = products.get(0);
+            assertEquals("Tea", tea.getName());
+            assertEquals(3, tea.getUnits());
+            assertEquals(450, tea.getPrice());
+            assertEquals("content://images/tea", tea.getImageUri());
+            assertEquals("/thumbs/tea.webp", tea.getThumbnailPath());
+        }
+    }
+
+    @Test
+    public void unchangedRowsReuseTheCachedModel() {
+        assertTrue(dbHelper.insertProduct("Coffee", 2, 900, null, null));
+        assertTrue(dbHelper.insertProduct("Sugar", 8, 120, null, null));
+        ArrayList<ProductModel> first = dbHelper.getProductPage(0, true, 10);
+
+        // A different page shape misses the page cache and re-reads the rows
+        dbHelper.getProductCache().invalidatePages();
+        ArrayList<ProductModel> second = dbHelper.getProductPage(0, true, 20);
+
+        assertEquals(2, second.size());
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+    }
+
+    @Test
+    public void changedRowsGetANewModel() {
+        assertTrue(dbHelper.insertProduct("Milk", 5, 300, null, null));
+        ProductModel before = dbHelper.getProductPage(0, true, 10).get(0);
+
+        // Changed behind DBHelper's back, so the cache still holds the old copy
+        dbHelper.openDatabase().execSQL("UPDATE products SET name = 'Oat Milk' WHERE id = " + before.getId());
+        dbHelper.getProductCache().invalidatePages();
+        ProductModel after = dbHelper.getProductPage(0, true, 20).get(0);
+
+        assertNotSame(before, after);
+        assertEquals("Oat Milk", after.getName());
+    }
+}
@@ -0,0 +1,105 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class ProductSearchTest {
+
+    private static final String TEST_DB = "search-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        assertTrue(dbHelper.insertProduct("Green Apple", 5, 200, null, null));
+        assertTrue(dbHelper.insertProduct("Apple Juice", 8, 350, null, null));
+        assertTrue(dbHelper.insertProduct("Pineapple", 2, 500, null, null));
+        assertTrue(dbHelper.insertProduct("apple pie", 1, 900, null, null));
+        assertTrue(dbHelper.insertProduct("Grape", 9, 300, null, null));
+        assertTrue(dbHelper.insertProduct("Juice Box", 4, 150, null, null));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void wordsMatchAsPrefixes() {
+        // "Pineapple" has no word starting with "app"
+        assertEquals(Arrays.asList("Apple Juice", "apple pie", "Green Apple"), names(search("app")));
+        assertEquals(Arrays.asList("Green Apple"), names(search("gr app")));
+        assertTrue(search("xyz").isEmpty());
+        assertTrue(search("  ").isEmpty());
+    }
+
+    @Test
+    public void namesStartingWithTheQueryRankFirst() {
+        // "Apple Juice" sorts first by name, but only "Juice Box" starts with the query
+        assertEquals(Arrays.asList("Juice Box", "Apple Juice"), names(search("juice")));
+        // Within each group, case-insensitive name order
+        assertEquals(Arrays.asList("Apple Juice", "apple pie", "Green Apple"), names(search("apple")));
+    }
+
+    @Test
+    public void indexFollowsRenamesAndDeletes() {
+        int juice = search("apple juice").get(0).getId();
+        assertTrue(dbHelper.updateProduct(juice, "Orange Juice", 8, 350, null, null));
+        dbHelper.deleteProductById(search("pie").get(0).getId());
+
+        assertEquals(Arrays.asList("Green Apple"), names(search("app")));
+        assertEquals(Arrays.asList("Orange Juice"), names(search("oran")));
+        assertEquals(Arrays.asList("Juice Box", "Orange Juice"), names(search("juice")));
+        assertTrue(search("pie").isEmpty());
+    }
+
+    @Test
+    public void stockChangesLeaveTheIndexAlone() {
+        int grape = search("grape").get(0).getId();
+        assertTrue(dbHelper.updateProduct(grape, "Grape", 0, 300, null, null));
+        dbHelper.addToCart(search("green").get(0).getId(), 5);
+        assertTrue(dbHelper.checkout().isSuccessful());
+
+        assertEquals(Arrays.asList("Grape"), names(search("grape")));
+        assertEquals(Arrays.asList("Green Apple"), names(search("green")));
+        // Only name changes re-tokenize
+        assertEquals(2, DatabaseUtils.longForQuery(dbHelper.openDatabase(), "SELECT COUNT(*) FROM sqlite_master"
+                + " WHERE type = 'trigger' AND name IN ('products_fts_bu', 'products_fts_au')"
+                + " AND sql LIKE '%UPDATE OF name ON%'", null));
+    }
+
+    private ArrayList<ProductModel> search(String query) {
+        return dbHelper.searchProducts(query, 20);
+    }
+
+    private static ArrayList<String> names(ArrayList<ProductModel> products) {
+        ArrayList<String> names = new ArrayList<>();
+        for (ProductModel product : products) {
+            names.add(product.getName());
+        }
+        return names;
+    }
+}
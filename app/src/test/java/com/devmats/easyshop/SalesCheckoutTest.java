@@ -0,0 +1,120 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SalesCheckoutTest {
+
+    private static final String TEST_DB = "sales-test.db";
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void checkoutDecrementsStockAndRecordsSale() {
+        int rice = insert("Rice", 10, 8000);
+        int salt = insert("Salt", 4, 150);
+        assertTrue(dbHelper.addToCart(rice, 2));
+        assertTrue(dbHelper.addToCart(rice, 1));
+        assertTrue(dbHelper.addToCart(salt, 4));
+
+        CheckoutResult result = dbHelper.checkout();
+
+        assertTrue(result.isSuccessful());
+        assertEquals(3 * 8000 + 4 * 150, result.total);
+        assertEquals(7, result.itemCount);
+        assertEquals(7, dbHelper.getProductById(rice).getUnits());
+        assertEquals(0, dbHelper.getProductById(salt).getUnits());
+        assertTrue(dbHelper.getCartItems().isEmpty());
+        SQLiteDatabase db = dbHelper.openDatabase();
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM sale_items WHERE sale_id = " + result.saleId));
+    }
+
+    @Test
+    public void shortfallRollsBackWholeSale() {
+        int rice = insert("Rice", 10, 8000);
+        int salt = insert("Salt", 1, 150);
+        dbHelper.addToCart(rice, 2);
+        dbHelper.addToCart(salt, 3);
+
+        CheckoutResult result = dbHelper.checkout();
+
+        assertFalse(result.isSuccessful());
+        assertEquals("Salt", result.outOfStockProduct);
+        assertEquals(10, dbHelper.getProductById(rice).getUnits());
+        assertEquals(2, dbHelper.getCartItems().size());
+        assertEquals(0, count(dbHelper.openDatabase(), "SELECT COUNT(*) FROM sales"));
+    }
+
+    @Test
+    public void deletedProductsLeaveTheCart() {
+        int rice = insert("Rice", 10, 8000);
+        dbHelper.addToCart(rice, 1);
+        dbHelper.deleteProductById(rice);
+
+        assertTrue(dbHelper.getCartItems().isEmpty());
+        assertFalse(dbHelper.addToCart(rice, 1));
+    }
+
+    // A busy counter: 300 sales of 5 lines each, well beyond hundreds of items a minute
+    @Test
+    public void sustainsRapidCheckouts() {
+        int[] ids = new int[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = insert("Item " + i, 10_000, 100 + i);
+        }
+
+        long start = System.nanoTime();
+        for (int sale = 0; sale < 300; sale++) {
+            for (int id : ids) {
+                dbHelper.addToCart(id, 1);
+            }
+            assertTrue(dbHelper.checkout().isSuccessful());
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(10_000 - 300, dbHelper.getProductById(ids[0]).getUnits());
+        assertEquals(1500, count(dbHelper.openDatabase(), "SELECT COUNT(*) FROM sale_items"));
+        assertTrue("300 checkouts took " + elapsedMs + " ms", elapsedMs < 30_000);
+    }
+
+    private int insert(String name, int units, long price) {
+        assertTrue(dbHelper.insertProduct(name, units, price, null, null));
+        List<ProductModel> page = dbHelper.getProductPage(Long.MAX_VALUE, false, 1);
+        return page.get(0).getId();
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        return android.database.DatabaseUtils.longForQuery(db, sql, null);
+    }
+}
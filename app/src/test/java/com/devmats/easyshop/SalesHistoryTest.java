@@ -0,0 +1,170 @@
+package com.devmats.easyshop;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SalesHistoryTest {
+
+    private static final String TEST_DB = "sales-history-test.db";
+    private static final int SEEDED_SALES = 20_000;
+    private static final long START = 1_700_000_000_000L;
+    private static final long STEP = 60_000;    // one sale a minute; every 10th shares a timestamp
+
+    private Context context;
+    private DBHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DBHelper(context, TEST_DB);
+        seedSales();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void keysetPagingVisitsEverySaleOnceNewestFirst() {
+        Set<Long> seen = new HashSet<>();
+        long beforeTimestamp = Long.MAX_VALUE;
+        long beforeId = Long.MAX_VALUE;
+        SaleRecord previous = null;
+        ArrayList<SaleRecord> page;
+        do {
+            page = dbHelper.getSalesPage(0, Long.MAX_VALUE, beforeTimestamp, beforeId, 500);
+            for (SaleRecord sale : page) {
+                assertTrue(seen.add(sale.getId()));
+                if (previous != null) {
+                    assertTrue(sale.getTimestamp() < previous.getTimestamp()
+                            || (sale.getTimestamp() == previous.getTimestamp() && sale.getId() < previous.getId()));
+                }
+                previous = sale;
+            }
+            if (!page.isEmpty()) {
+                beforeTimestamp = previous.getTimestamp();
+                beforeId = previous.getId();
+            }
+        } while (page.size() == 500);
+
+        assertEquals(SEEDED_SALES, seen.size());
+    }
+
+    @Test
+    public void dateRangeIsHalfOpen() {
+        long from = START + 100 * STEP;
+        long to = START + 200 * STEP;
+        ArrayList<SaleRecord> page = dbHelper.getSalesPage(from, to, Long.MAX_VALUE, Long.MAX_VALUE, 1_000);
+
+        for (SaleRecord sale : page) {
+            assertTrue(sale.getTimestamp() >= from && sale.getTimestamp() < to);
+        }
+        assertEquals(count("SELECT COUNT(*) FROM sales WHERE timestamp >= " + from + " AND timestamp < " + to),
+                page.size());
+    }
+
+    // Small pages inside a range, so the cursor bound and the range bound both come into play
+    @Test
+    public void pagingInsideARangeMatchesAScan() {
+        long from = START + 100 * STEP;
+        long to = START + 300 * STEP;
+        ArrayList<Long> paged = new ArrayList<>();
+        long beforeTimestamp = Long.MAX_VALUE;
+        long beforeId = Long.MAX_VALUE;
+        ArrayList<SaleRecord> page;
+        do {
+            page = dbHelper.getSalesPage(from, to, beforeTimestamp, beforeId, 7);
+            for (SaleRecord sale : page) {
+                paged.add(sale.getId());
+                beforeTimestamp = sale.getTimestamp();
+                beforeId = sale.getId();
+            }
+        } while (page.size() == 7);
+
+        ArrayList<Long> expected = new ArrayList<>();
+        try (Cursor cursor = dbHelper.openDatabase().rawQuery("SELECT id FROM sales WHERE timestamp >= " + from
+                + " AND timestamp < " + to + " ORDER BY timestamp DESC, id DESC", null)) {
+            while (cursor.moveToNext()) {
+                expected.add(cursor.getLong(0));
+            }
+        }
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void pagesSeekTheTimestampIndex() {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = dbHelper.openDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT id FROM sales"
+                + " WHERE timestamp >= ? AND timestamp < ? AND (timestamp < ? OR (timestamp = ? AND id < ?))"
+                + " ORDER BY timestamp DESC, id DESC LIMIT 50", new String[]{"0", "9", "9", "9", "9"})) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        }
+        assertTrue(plan.toString(), plan.toString().contains("idx_sales_timestamp"));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void exportStreamsEveryLine() throws IOException {
+        StringWriter out = new StringWriter();
+        int rows = new SalesExporter(context, dbHelper).write(out, 0, Long.MAX_VALUE);
+
+        assertEquals(SEEDED_SALES, rows);
+        String csv = out.toString();
+        assertTrue(csv.startsWith("sale_id,date,product,quantity,unit_price,line_total,sale_total\n"));
+        // Names with commas are quoted
+        assertTrue(csv.contains(",\"Rice, 1kg\",2,80.00,160.00,160.00\n"));
+    }
+
+    // Written directly rather than through checkout() to build a long history quickly
+    private void seedSales() {
+        SQLiteDatabase db = dbHelper.openDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement sale = db.compileStatement("INSERT INTO sales (timestamp, total, item_count) VALUES (?, 16000, 2)");
+            SQLiteStatement item = db.compileStatement("INSERT INTO sale_items (sale_id, product_id, name, quantity, unit_price)"
+                    + " VALUES (?, 1, 'Rice, 1kg', 2, 8000)");
+            for (int i = 0; i < SEEDED_SALES; i++) {
+                // Repeat a timestamp now and then so ties on timestamp are exercised
+                sale.bindLong(1, START + (i - (i % 10 == 1 ? 1 : 0)) * STEP);
+                long saleId = sale.executeInsert();
+                item.bindLong(1, saleId);
+                item.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private long count(String sql) {
+        return android.database.DatabaseUtils.longForQuery(dbHelper.openDatabase(), sql, null);
+    }
+}
@@ -0,0 +1,106 @@
+package com.devmats.easyshop.baselineprofile;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import kotlin.Unit;
+
+// Records the code the app runs on its critical journeys: signing in, scrolling the home
+// grid and adding a product. The resulting rules are compiled ahead of time on install,
+// so these paths don't start out interpreted.
+// Run with: ./gradlew :app:generateBaselineProfile
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    private static final String PACKAGE_NAME = "com.devmats.easyshop";
+    private static final String EMAIL = "profile@easyshop.test";
+    private static final String PASSWORD = "profile-password";
+    private static final int SEEDED_PRODUCTS = 1000;
+    private static final int FLINGS = 4;
+    private static final long TIMEOUT_MS = 10000;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(PACKAGE_NAME, scope -> {
+            seedSignedOut(scope.getDevice());
+            scope.pressHome();
+            scope.startActivityAndWait();
+
+            signIn(scope);
+            scrollGrid(scope);
+            addProduct(scope);
+            return Unit.INSTANCE;
+        });
+    }
+
+    // Registers the profile user, signs out and fills the catalog through the seed receiver
+    // that the benchmark build types include
+    private static void seedSignedOut(UiDevice device) {
+        try {
+            device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.READ_MEDIA_IMAGES");
+            device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.READ_EXTERNAL_STORAGE");
+            device.executeShellCommand("am broadcast -f 32 -a com.devmats.easyshop.SEED_PRODUCTS"
+                    + " --ei count " + SEEDED_PRODUCTS
+                    + " --es email " + EMAIL + " --es password " + PASSWORD
+                    + " -p " + PACKAGE_NAME);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not seed the app", e);
+        }
+    }
+
+    private static void signIn(MacrobenchmarkScope scope) {
+        find(scope, "edt_user_email").setText(EMAIL);
+        find(scope, "edt_user_password").setText(PASSWORD);
+        find(scope, "btn_login").click();
+        find(scope, "recycler_view_products");
+    }
+
+    private static void scrollGrid(MacrobenchmarkScope scope) {
+        UiObject2 grid = find(scope, "recycler_view_products");
+        // Keep the gesture away from the system navigation area
+        grid.setGestureMargin(scope.getDevice().getDisplayWidth() / 5);
+        for (int i = 0; i < FLINGS; i++) {
+            grid.fling(Direction.DOWN);
+        }
+        grid.fling(Direction.UP);
+        scope.getDevice().waitForIdle();
+    }
+
+    private static void addProduct(MacrobenchmarkScope scope) {
+        find(scope, "nav_icon").click();
+        find(scope, "btn_add_product").click();
+
+        // Names must be unique, and every iteration adds another product. setText() goes
+        // through accessibility, so no keyboard comes up to cover the save button.
+        find(scope, "edt_product_name").setText("Profile product " + System.nanoTime());
+        find(scope, "edt_units").setText("5");
+        find(scope, "edt_price").setText("250");
+        find(scope, "btn_add_product").click();
+
+        // Saving returns to the home grid
+        scope.getDevice().wait(Until.gone(By.res(PACKAGE_NAME, "edt_product_name")), TIMEOUT_MS);
+        find(scope, "recycler_view_products");
+    }
+
+    private static UiObject2 find(MacrobenchmarkScope scope, String id) {
+        UiObject2 view = scope.getDevice().wait(Until.findObject(By.res(PACKAGE_NAME, id)), TIMEOUT_MS);
+        if (view == null) {
+            throw new IllegalStateException("View " + id + " not shown");
+        }
+        return view;
+    }
+}
@@ -0,0 +1,85 @@
+package com.devmats.easyshop.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Frame timing while flinging through a 10k-product home grid.
+// Run with: ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+@RunWith(AndroidJUnit4.class)
+public class ProductGridScrollBenchmark {
+    static final String PACKAGE_NAME = "com.devmats.easyshop";
+    static final int SEEDED_PRODUCTS = 10000;
+    private static final String GRID_ID = PACKAGE_NAME + ":id/recycler_view_products";
+    private static final int FLINGS = 8;
+    private static final long TIMEOUT_MS = 5000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollProductGrid() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                // Fails rather than silently measuring JIT-only code if the profile is missing
+                new CompilationMode.Partial(BaselineProfileMode.Require),
+                null,
+                5,
+                scope -> {
+                    seedCatalog(scope.getDevice(), SEEDED_PRODUCTS);
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    findGrid(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiObject2 grid = findGrid(scope);
+                    // Keep the gesture away from the system navigation area
+                    grid.setGestureMargin(scope.getDevice().getDisplayWidth() / 5);
+                    for (int i = 0; i < FLINGS; i++) {
+                        grid.fling(Direction.DOWN);
+                    }
+                    scope.getDevice().waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Grants storage access, signs in and fills the catalog through the benchmark-only
+    // receiver in the app's benchmark build type. Safe to repeat; existing rows are skipped.
+    static void seedCatalog(UiDevice device, int count) {
+        try {
+            device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.READ_MEDIA_IMAGES");
+            device.executeShellCommand("pm grant " + PACKAGE_NAME + " android.permission.READ_EXTERNAL_STORAGE");
+            // Flag 0x20 delivers the broadcast even if the app was force-stopped; am waits for the receiver
+            device.executeShellCommand("am broadcast -f 32 -a com.devmats.easyshop.SEED_PRODUCTS"
+                    + " --ei count " + count + " -p " + PACKAGE_NAME);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("Could not seed the catalog", e);
+        }
+    }
+
+    private static UiObject2 findGrid(MacrobenchmarkScope scope) {
+        UiObject2 grid = scope.getDevice().wait(Until.findObject(By.res(GRID_ID)), TIMEOUT_MS);
+        if (grid == null) {
+            throw new IllegalStateException("Product grid not shown; is the benchmark build type installed?");
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,60 @@
+package com.devmats.easyshop.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Cold start of a signed-in launch: MainActivity's session check hands straight over to
+// the home grid. timeToInitialDisplay is the first frame; timeToFullDisplay is reported
+// by HomePageActivity once the first page of products is on screen. The two variants
+// compare a fresh install without any AOT compilation against one with the baseline profile.
+// Run with: ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartWithoutCompilation() {
+        coldStartToHomeGrid(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartWithBaselineProfile() {
+        coldStartToHomeGrid(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void coldStartToHomeGrid(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                ProductGridScrollBenchmark.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    ProductGridScrollBenchmark.seedCatalog(scope.getDevice(),
+                            ProductGridScrollBenchmark.SEEDED_PRODUCTS);
+                    // Seeding starts the app process; measure from a process that isn't running
+                    scope.killProcess();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}